@@ -40,6 +40,8 @@ public class DataSourceConfig {
         config.addDataSourceProperty("prepareThreshold", "0");
         config.addDataSourceProperty("preparedStatementCacheQueries", "0");
         config.addDataSourceProperty("preparedStatementCacheSizeMiB", "0");
+        // Send JDBC insert batches as multi-row INSERT statements
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
         
         return new HikariDataSource(config);
     }
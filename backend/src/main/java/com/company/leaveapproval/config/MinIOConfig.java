@@ -1,11 +1,16 @@
 package com.company.leaveapproval.config;
 
 import io.minio.MinioClient;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
+@ConditionalOnProperty(name = "storage.backend", havingValue = "minio", matchIfMissing = true)
 public class MinIOConfig {
 
     @Value("${minio.endpoint}")
@@ -17,11 +22,34 @@ public class MinIOConfig {
     @Value("${minio.secret-key}")
     private String secretKey;
 
+    // The client's defaults allow a stalled MinIO to hold a request thread for minutes
+    @Value("${minio.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${minio.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${minio.write-timeout-ms:30000}")
+    private long writeTimeoutMs;
+
+    // Covers the whole request; 0 leaves it to the per-phase timeouts above
+    @Value("${minio.call-timeout-ms:0}")
+    private long callTimeoutMs;
+
     @Bean
     public MinioClient minioClient() {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .writeTimeout(Duration.ofMillis(writeTimeoutMs))
+                .callTimeout(Duration.ofMillis(callTimeoutMs))
+                // Retries are handled by MinIOService, which knows whether the request body can be replayed
+                .retryOnConnectionFailure(false)
+                .build();
         return MinioClient.builder()
                 .endpoint(endpoint)
                 .credentials(accessKey, secretKey)
+                .httpClient(httpClient)
                 .build();
     }
 }
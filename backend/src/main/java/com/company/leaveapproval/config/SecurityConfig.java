@@ -3,6 +3,7 @@ package com.company.leaveapproval.config;
 import com.company.leaveapproval.security.JwtAuthenticationEntryPoint;
 import com.company.leaveapproval.security.JwtAuthenticationFilter;
 import com.company.leaveapproval.service.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -68,7 +69,9 @@ public class SecurityConfig {
                 .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth ->
-                        auth.requestMatchers("/api/auth/**").permitAll()
+                        // Re-dispatches of an already authorized async response (the leave event stream)
+                        auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers("/api/auth/**").permitAll()
                                 .requestMatchers("/api/test/**").permitAll()
                                 .requestMatchers("/api/attendance/public/**").permitAll()
                                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -1,55 +1,241 @@
 package com.company.leaveapproval.controller;
 
 import com.company.leaveapproval.dto.AttendanceDTO;
+import com.company.leaveapproval.dto.AttendancePageDTO;
+import com.company.leaveapproval.dto.BulkCheckInResponseDTO;
+import com.company.leaveapproval.dto.PhotoUrlBatchRequest;
+import com.company.leaveapproval.entity.PhotoUploadStatus;
+import com.company.leaveapproval.entity.User;
 import com.company.leaveapproval.service.AttendanceService;
+import com.company.leaveapproval.service.ContentUrlSigner;
+import com.company.leaveapproval.service.PhotoStreamService;
+import com.company.leaveapproval.service.PhotoStreamService.StreamedForm;
+import com.company.leaveapproval.service.StorageService;
+import com.company.leaveapproval.service.StorageUnavailableException;
+import com.company.leaveapproval.service.StoredObjectInfo;
+import com.company.leaveapproval.service.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/attendance")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class AttendanceController {
 
+    // Photo keys are never overwritten (each upload gets a fresh key), so their bytes can be cached for good
+    private static final Duration PHOTO_MAX_AGE = Duration.ofDays(365);
+    private static final String MUTABLE_PHOTO_PREFIX = "test/";
+    private static final List<String> CHECK_IN_STREAM_FIELDS = List.of("userId", "date", "checkInTime", "status");
+    private static final List<String> CHECK_OUT_STREAM_FIELDS = List.of("checkOutTime", "status");
+
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private PhotoStreamService photoStreamService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ContentUrlSigner contentUrlSigner;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
     @PostMapping("/check-in")
     public ResponseEntity<AttendanceDTO> checkIn(@RequestBody AttendanceDTO attendanceDTO) {
         try {
             AttendanceDTO result = attendanceService.checkIn(attendanceDTO);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
+            if (StorageUnavailableException.isCause(e)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
             return ResponseEntity.badRequest().body(attendanceDTO);
         }
     }
 
+    @PostMapping("/check-in/bulk")
+    public ResponseEntity<BulkCheckInResponseDTO> bulkCheckIn(@RequestBody List<AttendanceDTO> attendanceDTOs) {
+        try {
+            BulkCheckInResponseDTO result = attendanceService.bulkCheckIn(attendanceDTOs);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/check-out/{id}")
     public ResponseEntity<AttendanceDTO> checkOut(@PathVariable Long id, @RequestBody AttendanceDTO attendanceDTO) {
         try {
             AttendanceDTO result = attendanceService.checkOut(id, attendanceDTO);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
+            if (StorageUnavailableException.isCause(e)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
             return ResponseEntity.badRequest().body(null);
         }
     }
 
+    @PutMapping("/check-out/current")
+    public ResponseEntity<AttendanceDTO> checkOutCurrent(@RequestBody AttendanceDTO attendanceDTO,
+                                                         Authentication authentication) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            AttendanceDTO result = attendanceService.checkOutCurrent(user.getId(), attendanceDTO);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            if (StorageUnavailableException.isCause(e)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @GetMapping("/current")
+    public ResponseEntity<AttendanceDTO> getCurrentSession(Authentication authentication) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            AttendanceDTO result = attendanceService.getCurrentSession(user.getId());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<List<AttendanceDTO>> getAllAttendanceRecords() {
+    public ResponseEntity<List<AttendanceDTO>> getAllAttendanceRecords(
+            @RequestParam(value = "resolvePhotos", defaultValue = "false") boolean resolvePhotos) {
         try {
             List<AttendanceDTO> records = attendanceService.getAllAttendanceRecords();
+            if (resolvePhotos) {
+                attendanceService.embedPhotoUrls(records);
+            }
+            return ResponseEntity.ok(records);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<AttendancePageDTO> getAttendancePage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "resolvePhotos", defaultValue = "false") boolean resolvePhotos) {
+        try {
+            AttendancePageDTO page = attendanceService.getAttendancePage(cursor, size);
+            if (resolvePhotos) {
+                attendanceService.embedPhotoUrls(page.getRecords());
+            }
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<AttendancePageDTO> getAttendancePageByUserId(
+            @PathVariable Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "resolvePhotos", defaultValue = "false") boolean resolvePhotos) {
+        try {
+            AttendancePageDTO page = attendanceService.getAttendancePageByUserId(userId, cursor, size);
+            if (resolvePhotos) {
+                attendanceService.embedPhotoUrls(page.getRecords());
+            }
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/range")
+    public ResponseEntity<List<AttendanceDTO>> getAttendanceByDateRange(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "resolvePhotos", defaultValue = "false") boolean resolvePhotos) {
+        try {
+            List<AttendanceDTO> records = attendanceService.getAttendanceByDateRange(from, to);
+            if (resolvePhotos) {
+                attendanceService.embedPhotoUrls(records);
+            }
             return ResponseEntity.ok(records);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @GetMapping("/user/{userId}/range")
+    public ResponseEntity<List<AttendanceDTO>> getAttendanceByUserIdAndDateRange(
+            @PathVariable Long userId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "resolvePhotos", defaultValue = "false") boolean resolvePhotos) {
+        try {
+            List<AttendanceDTO> records = attendanceService.getAttendanceByUserIdAndDateRange(userId, from, to);
+            if (resolvePhotos) {
+                attendanceService.embedPhotoUrls(records);
+            }
+            return ResponseEntity.ok(records);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAttendance(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "userId", required = false) Long userId) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Rows are written as they are read from the cursor, nothing is buffered per export
+        StreamingResponseBody body = outputStream ->
+            attendanceService.exportAttendance(from, to, userId, format, outputStream);
+
+        return ResponseEntity.ok()
+            .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"attendance." + (csv ? "csv" : "ndjson") + "\"")
+            .body(body);
+    }
+
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<AttendanceDTO>> getAttendanceByUserId(@PathVariable Long userId) {
+    public ResponseEntity<List<AttendanceDTO>> getAttendanceByUserId(
+            @PathVariable Long userId,
+            @RequestParam(value = "resolvePhotos", defaultValue = "false") boolean resolvePhotos) {
         try {
             List<AttendanceDTO> records = attendanceService.getAttendanceByUserId(userId);
+            if (resolvePhotos) {
+                attendanceService.embedPhotoUrls(records);
+            }
             return ResponseEntity.ok(records);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -69,7 +255,7 @@ public class AttendanceController {
     @PostMapping(value = "/check-in/file", consumes = "multipart/form-data")
     public ResponseEntity<AttendanceDTO> checkInWithFile(
             @RequestParam("userId") Long userId,
-            @RequestParam("date") String date,
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam("checkInTime") String checkInTime,
             @RequestParam("status") String status,
             @RequestParam(value = "latitude", required = false) Double latitude,
@@ -87,6 +273,9 @@ public class AttendanceController {
             AttendanceDTO result = attendanceService.checkInWithFile(attendanceDTO, checkInPhoto);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
+            if (StorageUnavailableException.isCause(e)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
             System.err.println("Error in check-in with file: " + e.getMessage());
             e.printStackTrace();
             return ResponseEntity.badRequest().body(null);
@@ -111,10 +300,119 @@ public class AttendanceController {
             AttendanceDTO result = attendanceService.checkOutWithFile(id, attendanceDTO, checkOutPhoto);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
+            if (StorageUnavailableException.isCause(e)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
             return ResponseEntity.badRequest().body(null);
         }
     }
 
+    @PutMapping(value = "/check-out/current/file", consumes = "multipart/form-data")
+    public ResponseEntity<AttendanceDTO> checkOutCurrentWithFile(
+            @RequestParam("checkOutTime") String checkOutTime,
+            @RequestParam("status") String status,
+            @RequestParam(value = "latitude", required = false) Double latitude,
+            @RequestParam(value = "longitude", required = false) Double longitude,
+            @RequestParam(value = "checkOutPhoto", required = false) MultipartFile checkOutPhoto,
+            Authentication authentication) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            AttendanceDTO attendanceDTO = new AttendanceDTO();
+            attendanceDTO.setCheckOutTime(parseDateTime(checkOutTime));
+            attendanceDTO.setStatus(status);
+            attendanceDTO.setLatitude(latitude);
+            attendanceDTO.setLongitude(longitude);
+            
+            AttendanceDTO result = attendanceService.checkOutCurrentWithFile(user.getId(), attendanceDTO, checkOutPhoto);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            if (StorageUnavailableException.isCause(e)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // Streaming variants: fields first, then the photo part, which is piped to storage without spooling
+    @PostMapping(value = "/check-in/stream", consumes = "multipart/form-data")
+    public ResponseEntity<AttendanceDTO> checkInStreaming(HttpServletRequest request) {
+        StreamedForm form = null;
+        try {
+            form = photoStreamService.receive(request, "checkInPhoto", "check-in", CHECK_IN_STREAM_FIELDS);
+            AttendanceDTO attendanceDTO = new AttendanceDTO();
+            attendanceDTO.setUserId(Long.valueOf(form.getField("userId")));
+            attendanceDTO.setDate(LocalDate.parse(form.getField("date")));
+            attendanceDTO.setCheckInTime(parseDateTime(form.getField("checkInTime")));
+            attendanceDTO.setStatus(form.getField("status"));
+            attendanceDTO.setLatitude(parseCoordinate(form.getField("latitude")));
+            attendanceDTO.setLongitude(parseCoordinate(form.getField("longitude")));
+            attendanceDTO.setCheckInPhoto(form.getPhotoKey());
+            
+            AttendanceDTO result = attendanceService.checkIn(attendanceDTO);
+            return ResponseEntity.ok(result);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            photoStreamService.discard(form);
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @PutMapping(value = "/check-out/{id}/stream", consumes = "multipart/form-data")
+    public ResponseEntity<AttendanceDTO> checkOutStreaming(@PathVariable Long id, HttpServletRequest request) {
+        StreamedForm form = null;
+        try {
+            form = photoStreamService.receive(request, "checkOutPhoto", "check-out", CHECK_OUT_STREAM_FIELDS);
+            AttendanceDTO result = attendanceService.checkOut(id, toCheckOutDTO(form));
+            return ResponseEntity.ok(result);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            photoStreamService.discard(form);
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @PutMapping(value = "/check-out/current/stream", consumes = "multipart/form-data")
+    public ResponseEntity<AttendanceDTO> checkOutCurrentStreaming(HttpServletRequest request, Authentication authentication) {
+        StreamedForm form = null;
+        try {
+            User user = (User) authentication.getPrincipal();
+            form = photoStreamService.receive(request, "checkOutPhoto", "check-out", CHECK_OUT_STREAM_FIELDS);
+            AttendanceDTO result = attendanceService.checkOutCurrent(user.getId(), toCheckOutDTO(form));
+            return ResponseEntity.ok(result);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            photoStreamService.discard(form);
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @GetMapping("/photo-uploads")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AttendanceDTO>> getPhotoUploads(
+            @RequestParam(value = "status", required = false) List<String> status) {
+        try {
+            List<PhotoUploadStatus> statuses = status == null ? null : status.stream()
+                .map(value -> PhotoUploadStatus.valueOf(value.toUpperCase()))
+                .collect(Collectors.toList());
+            return ResponseEntity.ok(attendanceService.getPhotoUploads(statuses));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/photo-urls")
+    public ResponseEntity<Map<String, String>> getPhotoUrls(@RequestBody PhotoUrlBatchRequest request) {
+        try {
+            Map<String, String> urls = attendanceService.getPhotoUrls(request);
+            return ResponseEntity.ok(urls);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/photo/{objectKey}")
     public ResponseEntity<String> getPhotoUrl(@PathVariable String objectKey) {
         try {
@@ -141,6 +439,26 @@ public class AttendanceController {
         }
     }
 
+    // Stable, cacheable photo URL: streams the object with ETag/Last-Modified, conditional GET and byte ranges
+    @GetMapping("/photos/{*objectKey}")
+    public ResponseEntity<StreamingResponseBody> getPhotoContent(@PathVariable String objectKey, WebRequest webRequest) {
+        return servePhoto(stripLeadingSlash(objectKey), webRequest);
+    }
+
+    // Photo bytes behind the signed URLs issued by the local and in-memory storage backends
+    @GetMapping("/public/photos/{*objectKey}")
+    public ResponseEntity<StreamingResponseBody> getSignedPhotoContent(
+            @PathVariable String objectKey,
+            @RequestParam("expires") long expires,
+            @RequestParam("signature") String signature,
+            WebRequest webRequest) {
+        String key = stripLeadingSlash(objectKey);
+        if (!contentUrlSigner.verify(key, expires, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return servePhoto(key, webRequest);
+    }
+
     @GetMapping("/test-minio")
     public ResponseEntity<String> testMinIO() {
         try {
@@ -181,6 +499,99 @@ public class AttendanceController {
         }
     }
 
+    private ResponseEntity<StreamingResponseBody> servePhoto(String key, WebRequest webRequest) {
+        String objectKey = key;
+        boolean fallback = false;
+        StoredObjectInfo info;
+        try {
+            info = storageService.stat(key);
+        } catch (Exception e) {
+            // A rendition that was dropped under load or predates thumbnails is queued for the thumbnail
+            // workers and the original is served meanwhile, uncached so the rendition replaces it later
+            if (!thumbnailService.submitFor(key)) {
+                return ResponseEntity.notFound().build();
+            }
+            objectKey = thumbnailService.originalKey(key);
+            fallback = true;
+            try {
+                info = storageService.stat(objectKey);
+            } catch (Exception original) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+        String servedKey = objectKey;
+        String etag = "\"" + info.getEtag() + "\"";
+        long lastModified = info.getLastModified() != null ? info.getLastModified().toEpochMilli() : -1;
+        CacheControl cacheControl = fallback || key.startsWith(MUTABLE_PHOTO_PREFIX)
+            ? CacheControl.noCache().cachePrivate()
+            : CacheControl.maxAge(PHOTO_MAX_AGE).cachePrivate().immutable();
+
+        // If-None-Match / If-Modified-Since, answered with 304 before any byte is read
+        if (webRequest instanceof ServletWebRequest) {
+            ((ServletWebRequest) webRequest).getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        long size = info.getSize();
+        long start = 0;
+        long end = size - 1;
+        boolean partial = false;
+        String range = webRequest.getHeader(HttpHeaders.RANGE);
+        String ifRange = webRequest.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Multiple ranges are answered with the full body, which RFC 9110 allows
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+            }
+        }
+
+        long offset = start;
+        long length = end - start + 1;
+        StreamingResponseBody body = out -> storageService.writeTo(servedKey, offset, length, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+            .eTag(etag)
+            .cacheControl(cacheControl)
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .contentType(MediaType.parseMediaType(info.getContentType()))
+            .contentLength(length);
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        return response.body(body);
+    }
+
+    private String stripLeadingSlash(String objectKey) {
+        return objectKey.startsWith("/") ? objectKey.substring(1) : objectKey;
+    }
+
+    private AttendanceDTO toCheckOutDTO(StreamedForm form) {
+        AttendanceDTO attendanceDTO = new AttendanceDTO();
+        attendanceDTO.setCheckOutTime(parseDateTime(form.getField("checkOutTime")));
+        attendanceDTO.setStatus(form.getField("status"));
+        attendanceDTO.setLatitude(parseCoordinate(form.getField("latitude")));
+        attendanceDTO.setLongitude(parseCoordinate(form.getField("longitude")));
+        attendanceDTO.setCheckOutPhoto(form.getPhotoKey());
+        return attendanceDTO;
+    }
+
+    private Double parseCoordinate(String value) {
+        return value == null || value.isEmpty() ? null : Double.valueOf(value);
+    }
+
     private java.time.LocalDateTime parseDateTime(String dateTimeString) {
         try {
             // First try to parse as ISO 8601 with timezone (e.g., "2025-01-06T12:30:00.000Z")
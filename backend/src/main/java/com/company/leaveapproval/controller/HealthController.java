@@ -1,5 +1,6 @@
 package com.company.leaveapproval.controller;
 
+import com.company.leaveapproval.service.StorageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +19,9 @@ public class HealthController {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private StorageService storageService;
+
     @GetMapping
     public ResponseEntity<Map<String, Object>> healthCheck() {
         Map<String, Object> health = new HashMap<>();
@@ -48,6 +52,16 @@ public class HealthController {
             readiness.put("error", e.getMessage());
         }
         
+        // Photo storage: provision the bucket/directory here if startup could not, uploads then skip the check
+        if (!storageService.isReady()) {
+            try {
+                storageService.initialize();
+            } catch (Exception e) {
+                readiness.put("storageError", e.getMessage());
+            }
+        }
+        readiness.put("storage", storageService.isReady() ? "READY" : "NOT_READY");
+        
         return ResponseEntity.ok(readiness);
     }
 }
@@ -1,21 +1,41 @@
 package com.company.leaveapproval.controller;
 
+import com.company.leaveapproval.dto.BulkLeaveDecisionDto;
+import com.company.leaveapproval.dto.BulkLeaveDecisionItemResultDTO;
+import com.company.leaveapproval.dto.BulkLeaveDecisionResponseDTO;
 import com.company.leaveapproval.dto.LeaveApprovalDto;
+import com.company.leaveapproval.dto.LeaveRequestCursor;
 import com.company.leaveapproval.dto.LeaveRequestDto;
+import com.company.leaveapproval.dto.LeaveRequestPageDTO;
+import com.company.leaveapproval.dto.LeaveSearchCriteria;
 import com.company.leaveapproval.entity.LeaveRequest;
 import com.company.leaveapproval.entity.LeaveStatus;
 import com.company.leaveapproval.entity.User;
 import com.company.leaveapproval.repository.LeaveRequestRepository;
 import com.company.leaveapproval.repository.UserRepository;
+import com.company.leaveapproval.service.LeaveEventService;
+import com.company.leaveapproval.service.LeaveSearchCountCache;
+import com.company.leaveapproval.service.PendingLeaveQueue;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -23,12 +43,25 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/leaves")
 public class LeaveRequestController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BULK_DECISION_IDS = 200;
+
     @Autowired
     private LeaveRequestRepository leaveRequestRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LeaveSearchCountCache leaveSearchCountCache;
+
+    @Autowired
+    private PendingLeaveQueue pendingLeaveQueue;
+
+    @Autowired
+    private LeaveEventService leaveEventService;
+
     @PostMapping("/apply")
     @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
     public ResponseEntity<?> applyLeave(@Valid @RequestBody LeaveRequestDto leaveRequestDto, 
@@ -43,8 +76,20 @@ public class LeaveRequestController {
         leaveRequest.setReason(leaveRequestDto.getReason());
 
         LeaveRequest savedRequest = leaveRequestRepository.save(leaveRequest);
+        leaveSearchCountCache.invalidateAll();
+        pendingLeaveQueue.update(savedRequest);
 
-        return ResponseEntity.ok(convertToDto(savedRequest));
+        LeaveRequestDto savedDto = convertToDto(savedRequest);
+        leaveEventService.publish(LeaveEventService.LEAVE_CREATED, savedDto, employee.getId());
+        return ResponseEntity.ok(savedDto);
+    }
+
+    // Live feed of leave changes: admins get all of them, employees their own. Reload over REST on "resync"
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    public SseEmitter streamLeaveEvents(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return leaveEventService.subscribe(user.getId(), user.getRole().name().equals("ADMIN"));
     }
 
     @GetMapping("/my-requests")
@@ -75,6 +120,10 @@ public class LeaveRequestController {
     @GetMapping("/pending")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<LeaveRequestDto>> getPendingLeaveRequests() {
+        // Served from memory once the pending queue has loaded
+        if (pendingLeaveQueue.isLoaded()) {
+            return ResponseEntity.ok(pendingLeaveQueue.list());
+        }
         List<LeaveRequest> requests = leaveRequestRepository.findByStatus(LeaveStatus.PENDING);
 
         List<LeaveRequestDto> dtos = requests.stream()
@@ -84,6 +133,55 @@ public class LeaveRequestController {
         return ResponseEntity.ok(dtos);
     }
 
+    @GetMapping("/pending/count")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPendingLeaveCount() {
+        long count = pendingLeaveQueue.isLoaded()
+                ? pendingLeaveQueue.count()
+                : leaveRequestRepository.findPendingIds().size();
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", count);
+        return ResponseEntity.ok(response);
+    }
+
+    // Keyset-paged admin search; every filter is optional. total is cached per filter for a short time
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<LeaveRequestPageDTO> searchLeaveRequests(
+            @RequestParam(value = "status", required = false) LeaveStatus status,
+            @RequestParam(value = "leaveType", required = false) String leaveType,
+            @RequestParam(value = "department", required = false) String department,
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        try {
+            LeaveSearchCriteria criteria = new LeaveSearchCriteria(status, blankToNull(leaveType),
+                blankToNull(department), userId, from, to);
+            int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+            LeaveRequestCursor after = cursor == null || cursor.isEmpty() ? null : LeaveRequestCursor.decode(cursor);
+
+            // Fetch one extra row to know whether another page exists
+            List<LeaveRequest> requests = leaveRequestRepository.search(criteria, after, pageSize + 1);
+            boolean hasMore = requests.size() > pageSize;
+            List<LeaveRequest> pageRows = hasMore ? requests.subList(0, pageSize) : requests;
+            List<LeaveRequestDto> records = pageRows.stream()
+                    .map(this::convertToDto)
+                    .collect(Collectors.toList());
+
+            String nextCursor = null;
+            if (hasMore) {
+                LeaveRequest last = pageRows.get(pageRows.size() - 1);
+                nextCursor = new LeaveRequestCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+            return ResponseEntity.ok(new LeaveRequestPageDTO(records, nextCursor, hasMore, records.size(),
+                leaveSearchCountCache.count(criteria)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/{id}/approve")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> approveLeaveRequest(@PathVariable Long id, 
@@ -100,8 +198,65 @@ public class LeaveRequestController {
         leaveRequest.setApprovedAt(LocalDateTime.now());
 
         LeaveRequest updatedRequest = leaveRequestRepository.save(leaveRequest);
+        leaveSearchCountCache.invalidateAll();
+        pendingLeaveQueue.update(updatedRequest);
+
+        LeaveRequestDto updatedDto = convertToDto(updatedRequest);
+        leaveEventService.publish(eventType(updatedRequest.getStatus()), updatedDto,
+                updatedRequest.getEmployee().getId());
+        return ResponseEntity.ok(updatedDto);
+    }
+
+    // Approves or rejects many pending requests at once with a single UPDATE. Each id comes back as APPLIED,
+    // NOT_FOUND or CONFLICT (already decided, possibly by another admin in the meantime)
+    @PostMapping("/bulk-decision")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> decideLeaveRequests(@Valid @RequestBody BulkLeaveDecisionDto decisionDto,
+                                                 Authentication authentication) {
+        User admin = (User) authentication.getPrincipal();
 
-        return ResponseEntity.ok(convertToDto(updatedRequest));
+        LeaveStatus decision;
+        try {
+            decision = LeaveStatus.valueOf(decisionDto.getStatus());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Status must be APPROVED or REJECTED");
+        }
+        if (decision != LeaveStatus.APPROVED && decision != LeaveStatus.REJECTED) {
+            return ResponseEntity.badRequest().body("Status must be APPROVED or REJECTED");
+        }
+        Set<Long> ids = new LinkedHashSet<>(decisionDto.getIds());
+        ids.remove(null);
+        if (ids.isEmpty() || ids.size() > MAX_BULK_DECISION_IDS) {
+            return ResponseEntity.badRequest().body("Between 1 and " + MAX_BULK_DECISION_IDS + " ids are required");
+        }
+
+        Set<Long> appliedIds = new HashSet<>(leaveRequestRepository.decidePending(ids, decision.name(),
+                decisionDto.getAdminComment(), admin.getId(), LocalDateTime.now()));
+        // Read after the update so applied rows come back decided and conflicts show their current status
+        Map<Long, LeaveRequest> requests = leaveRequestRepository.findWithUsersByIdIn(ids).stream()
+                .collect(Collectors.toMap(LeaveRequest::getId, Function.identity()));
+
+        if (!appliedIds.isEmpty()) {
+            leaveSearchCountCache.invalidateAll();
+        }
+        List<BulkLeaveDecisionItemResultDTO> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            LeaveRequest request = requests.get(id);
+            if (request == null) {
+                // Also covers a request applied to but deleted before it could be read back
+                results.add(new BulkLeaveDecisionItemResultDTO(id, "NOT_FOUND", null, "Leave request not found"));
+            } else if (appliedIds.contains(id)) {
+                pendingLeaveQueue.update(request);
+                leaveEventService.publish(eventType(request.getStatus()), convertToDto(request),
+                        request.getEmployee().getId());
+                results.add(new BulkLeaveDecisionItemResultDTO(id, "APPLIED", request.getStatus().name(), null));
+            } else {
+                results.add(new BulkLeaveDecisionItemResultDTO(id, "CONFLICT", request.getStatus().name(),
+                        "Leave request is no longer pending"));
+            }
+        }
+
+        return ResponseEntity.ok(new BulkLeaveDecisionResponseDTO(results));
     }
 
     @DeleteMapping("/{id}")
@@ -123,30 +278,30 @@ public class LeaveRequestController {
             return ResponseEntity.badRequest().body("Cannot delete processed leave request");
         }
 
+        LeaveRequestDto deletedDto = convertToDto(leaveRequest);
         leaveRequestRepository.delete(leaveRequest);
+        leaveSearchCountCache.invalidateAll();
+        pendingLeaveQueue.remove(id);
+        leaveEventService.publish(LeaveEventService.LEAVE_DELETED, deletedDto, leaveRequest.getEmployee().getId());
         return ResponseEntity.ok().build();
     }
 
-    private LeaveRequestDto convertToDto(LeaveRequest request) {
-        LeaveRequestDto dto = new LeaveRequestDto();
-        dto.setId(request.getId());
-        dto.setStartDate(request.getStartDate());
-        dto.setEndDate(request.getEndDate());
-        dto.setLeaveType(request.getLeaveType());
-        dto.setReason(request.getReason());
-        dto.setStatus(request.getStatus().name());
-        dto.setAdminComment(request.getAdminComment());
-        
-        // Handle employee information safely
-        if (request.getEmployee() != null) {
-            dto.setEmployeeName(request.getEmployee().getFirstName() + " " + request.getEmployee().getLastName());
-            dto.setEmployeeEmail(request.getEmployee().getEmail());
-        }
-        
-        // Handle approved by information safely
-        if (request.getApprovedBy() != null) {
-            dto.setApprovedByName(request.getApprovedBy().getFirstName() + " " + request.getApprovedBy().getLastName());
+    private String eventType(LeaveStatus status) {
+        switch (status) {
+            case APPROVED:
+                return LeaveEventService.LEAVE_APPROVED;
+            case REJECTED:
+                return LeaveEventService.LEAVE_REJECTED;
+            default:
+                return LeaveEventService.LEAVE_UPDATED;
         }
-        return dto;
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private LeaveRequestDto convertToDto(LeaveRequest request) {
+        return LeaveRequestDto.fromEntity(request);
     }
 }
\ No newline at end of file
@@ -8,19 +8,27 @@ import com.company.leaveapproval.entity.User;
 import com.company.leaveapproval.repository.AttendanceRepository;
 import com.company.leaveapproval.repository.LeaveRequestRepository;
 import com.company.leaveapproval.repository.UserRepository;
+import com.company.leaveapproval.service.PendingLeaveQueue;
 import com.company.leaveapproval.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,6 +38,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_DETAIL_PAGE_SIZE = 500;
+
     @Autowired
     private UserService userService;
 
@@ -45,6 +55,9 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PendingLeaveQueue pendingLeaveQueue;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<UserDto>> getAllUsers() {
@@ -113,6 +126,7 @@ public class UserController {
             System.out.println("Deleting leave requests...");
             leaveRequestRepository.deleteByEmployeeId(id);
             System.out.println("Leave requests deleted");
+            removeFromPendingQueueAfterCommit(userToDelete.getEmail());
             
             // STEP 3: Delete all attendance records for this user
             System.out.println("Deleting attendance records...");
@@ -135,27 +149,26 @@ public class UserController {
         }
     }
 
+    // Totals and breakdowns are computed by aggregate queries; only one page of compact detail rows is loaded
     @GetMapping("/{id}/leave-stats")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getUserLeaveStats(
             @PathVariable Long id,
             @RequestParam(required = false) Integer year,
-            @RequestParam(required = false) Integer month) {
+            @RequestParam(required = false) Integer month,
+            @RequestParam(defaultValue = "false") boolean histogram,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
         
         Map<String, Object> stats = new HashMap<>();
         
-        // Get all leave requests for this user
-        List<LeaveRequest> allLeaves = leaveRequestRepository.findByEmployeeId(id);
+        LeaveRequestRepository.LeaveTotals totals = leaveRequestRepository.getLeaveTotals(id);
+        stats.put("totalLeaves", totals.getTotalLeaves());
+        stats.put("totalLeaveDays", totals.getApprovedDays());
         
-        // Calculate total leave requests
-        stats.put("totalLeaves", allLeaves.size());
-        
-        // Calculate total approved leave days
-        long totalLeaveDays = allLeaves.stream()
-            .filter(leave -> leave.getStatus() == LeaveStatus.APPROVED)
-            .mapToLong(this::calculateLeaveDays)
-            .sum();
-        stats.put("totalLeaveDays", totalLeaveDays);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_DETAIL_PAGE_SIZE),
+            Sort.by(Sort.Direction.DESC, "startDate").and(Sort.by(Sort.Direction.DESC, "id")));
+        Page<LeaveRequestRepository.LeaveDetail> details;
         
         // Filter by month/year if provided
         if (year != null && month != null) {
@@ -163,31 +176,62 @@ public class UserController {
             LocalDate start = yearMonth.atDay(1);
             LocalDate end = yearMonth.atEndOfMonth();
             
-            List<LeaveRequest> monthlyLeaves = allLeaves.stream()
-                .filter(leave -> leave.getStatus() == LeaveStatus.APPROVED)
-                .filter(leave -> !leave.getStartDate().isBefore(start) && !leave.getStartDate().isAfter(end))
-                .collect(Collectors.toList());
-            
-            // Calculate leave days for the specific month
-            long monthlyLeaveDays = monthlyLeaves.stream()
-                .mapToLong(this::calculateLeaveDays)
-                .sum();
-            
-            stats.put("monthlyLeaves", monthlyLeaves.size());
-            stats.put("monthlyLeaveDays", monthlyLeaveDays);
-            stats.put("leaveDetails", monthlyLeaves);
+            LeaveRequestRepository.LeaveTotals monthly =
+                leaveRequestRepository.getApprovedTotalsStartingBetween(id, start, end);
+            stats.put("monthlyLeaves", monthly.getTotalLeaves());
+            stats.put("monthlyLeaveDays", monthly.getApprovedDays());
+            details = leaveRequestRepository.findDetailsByEmployeeIdAndStatusStartingBetween(
+                id, LeaveStatus.APPROVED, start, end, pageable);
         } else {
-            stats.put("monthlyLeaves", allLeaves.size());
-            stats.put("monthlyLeaveDays", totalLeaveDays);
-            stats.put("leaveDetails", allLeaves);
+            stats.put("monthlyLeaves", totals.getTotalLeaves());
+            stats.put("monthlyLeaveDays", totals.getApprovedDays());
+            details = leaveRequestRepository.findDetailsByEmployeeId(id, pageable);
+        }
+        
+        // Approved requests per start month and leave type, limited to the year when one is given
+        LocalDate breakdownFrom = year != null ? LocalDate.of(year, 1, 1) : LocalDate.of(1900, 1, 1);
+        LocalDate breakdownTo = year != null ? LocalDate.of(year, 12, 31) : LocalDate.of(9999, 12, 31);
+        stats.put("monthlyBreakdown",
+            leaveRequestRepository.getApprovedDaysByStartMonthAndType(id, breakdownFrom, breakdownTo));
+        
+        if (histogram && year != null) {
+            stats.put("yearHistogram", toYearHistogram(year,
+                leaveRequestRepository.getApprovedDaysHistogram(id, LocalDate.of(year, 1, 1))));
         }
         
+        stats.put("leaveDetails", details.getContent());
+        Map<String, Object> detailsPage = new HashMap<>();
+        detailsPage.put("page", details.getNumber());
+        detailsPage.put("size", details.getSize());
+        detailsPage.put("totalElements", details.getTotalElements());
+        detailsPage.put("totalPages", details.getTotalPages());
+        stats.put("leaveDetailsPage", detailsPage);
+        
         return ResponseEntity.ok(stats);
     }
 
-    private long calculateLeaveDays(LeaveRequest leave) {
-        // Calculate the number of days between start and end date (inclusive)
-        return ChronoUnit.DAYS.between(leave.getStartDate(), leave.getEndDate()) + 1;
+    // One entry per month of the year, including empty months, with approved days in total and per leave type
+    private List<Map<String, Object>> toYearHistogram(int year, List<LeaveRequestRepository.MonthTypeDays> rows) {
+        Map<String, Map<String, Object>> byMonth = new LinkedHashMap<>();
+        for (int month = 1; month <= 12; month++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            String key = YearMonth.of(year, month).toString();
+            entry.put("month", key);
+            entry.put("days", 0L);
+            entry.put("byLeaveType", new LinkedHashMap<String, Long>());
+            byMonth.put(key, entry);
+        }
+        for (LeaveRequestRepository.MonthTypeDays row : rows) {
+            Map<String, Object> entry = byMonth.get(row.getMonth());
+            if (entry == null) {
+                continue;
+            }
+            entry.put("days", (Long) entry.get("days") + row.getDays());
+            @SuppressWarnings("unchecked")
+            Map<String, Long> byLeaveType = (Map<String, Long>) entry.get("byLeaveType");
+            byLeaveType.put(row.getLeaveType(), row.getDays());
+        }
+        return new ArrayList<>(byMonth.values());
     }
 
     // Utility endpoint to encode all plain-text passwords (for migration only)
@@ -293,6 +337,9 @@ public class UserController {
             System.out.println("Deleting leave requests for employee ID: " + id);
             leaveRequestRepository.deleteByEmployeeId(id);
             System.out.println("Leave requests deleted");
+            if (user != null) {
+                removeFromPendingQueueAfterCommit(user.getEmail());
+            }
             
             System.out.println("Deleting attendance records for user ID: " + id);
             attendanceRepository.deleteByUserId(id);
@@ -368,4 +415,14 @@ public class UserController {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // The pending queue only follows committed writes; a deletion that rolls back leaves the requests pending
+    private void removeFromPendingQueueAfterCommit(String email) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendingLeaveQueue.removeByEmployeeEmail(email);
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.company.leaveapproval.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Opaque keyset position in the (date DESC, checkInTime DESC, id DESC) attendance ordering
+public class AttendanceCursor {
+    private final LocalDate date;
+    private final LocalDateTime checkInTime;
+    private final Long id;
+
+    public AttendanceCursor(LocalDate date, LocalDateTime checkInTime, Long id) {
+        this.date = date;
+        this.checkInTime = checkInTime;
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalDateTime getCheckInTime() {
+        return checkInTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = date + "|" + checkInTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AttendanceCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new AttendanceCursor(LocalDate.parse(parts[0]), LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid attendance cursor: " + cursor);
+        }
+    }
+}
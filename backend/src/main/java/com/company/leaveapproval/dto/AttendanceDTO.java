@@ -1,12 +1,13 @@
 package com.company.leaveapproval.dto;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 public class AttendanceDTO {
     private Long id;
     private Long userId;
-    private String date;
+    private LocalDate date;
     
     private LocalDateTime checkInTime;
     
@@ -18,12 +19,18 @@ public class AttendanceDTO {
     private String photo; // Check-in photo for backward compatibility
     private String checkInPhoto; // Check-in photo
     private String checkOutPhoto; // Check-out photo
+    private String checkInPhotoStatus; // PENDING, UPLOADED or FAILED when a photo upload was requested
+    private String checkOutPhotoStatus; // PENDING, UPLOADED or FAILED when a photo upload was requested
+    private String checkInPhotoResolvedUrl; // Viewable check-in photo URL, only set when requested
+    private String checkOutPhotoResolvedUrl; // Viewable check-out photo URL, only set when requested
+    private String checkInThumbnailUrl; // Small check-in rendition for list views, only set when requested
+    private String checkOutThumbnailUrl; // Small check-out rendition for list views, only set when requested
 
     // Constructors
     public AttendanceDTO() {
     }
 
-    public AttendanceDTO(Long id, Long userId, String date, LocalDateTime checkInTime, 
+    public AttendanceDTO(Long id, Long userId, LocalDate date, LocalDateTime checkInTime, 
                         LocalDateTime checkOutTime, String status, Double latitude, 
                         Double longitude, String checkInPhoto, String checkOutPhoto) {
         this.id = id;
@@ -57,11 +64,11 @@ public class AttendanceDTO {
         this.userId = userId;
     }
 
-    public String getDate() {
+    public LocalDate getDate() {
         return date;
     }
 
-    public void setDate(String date) {
+    public void setDate(LocalDate date) {
         this.date = date;
     }
 
@@ -134,6 +141,54 @@ public class AttendanceDTO {
     public void setCheckOutPhoto(String checkOutPhoto) {
         this.checkOutPhoto = checkOutPhoto;
     }
+
+    public String getCheckInPhotoStatus() {
+        return checkInPhotoStatus;
+    }
+
+    public void setCheckInPhotoStatus(String checkInPhotoStatus) {
+        this.checkInPhotoStatus = checkInPhotoStatus;
+    }
+
+    public String getCheckOutPhotoStatus() {
+        return checkOutPhotoStatus;
+    }
+
+    public void setCheckOutPhotoStatus(String checkOutPhotoStatus) {
+        this.checkOutPhotoStatus = checkOutPhotoStatus;
+    }
+
+    public String getCheckInPhotoResolvedUrl() {
+        return checkInPhotoResolvedUrl;
+    }
+
+    public void setCheckInPhotoResolvedUrl(String checkInPhotoResolvedUrl) {
+        this.checkInPhotoResolvedUrl = checkInPhotoResolvedUrl;
+    }
+
+    public String getCheckOutPhotoResolvedUrl() {
+        return checkOutPhotoResolvedUrl;
+    }
+
+    public void setCheckOutPhotoResolvedUrl(String checkOutPhotoResolvedUrl) {
+        this.checkOutPhotoResolvedUrl = checkOutPhotoResolvedUrl;
+    }
+
+    public String getCheckInThumbnailUrl() {
+        return checkInThumbnailUrl;
+    }
+
+    public void setCheckInThumbnailUrl(String checkInThumbnailUrl) {
+        this.checkInThumbnailUrl = checkInThumbnailUrl;
+    }
+
+    public String getCheckOutThumbnailUrl() {
+        return checkOutThumbnailUrl;
+    }
+
+    public void setCheckOutThumbnailUrl(String checkOutThumbnailUrl) {
+        this.checkOutThumbnailUrl = checkOutThumbnailUrl;
+    }
     
     @Override
     public String toString() {
@@ -0,0 +1,54 @@
+package com.company.leaveapproval.dto;
+
+import java.util.List;
+
+public class AttendancePageDTO {
+    private List<AttendanceDTO> records;
+    private String nextCursor; // null when there are no more records
+    private boolean hasMore;
+    private int size;
+
+    // Constructors
+    public AttendancePageDTO() {
+    }
+
+    public AttendancePageDTO(List<AttendanceDTO> records, String nextCursor, boolean hasMore, int size) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.size = size;
+    }
+
+    // Getters and Setters
+    public List<AttendanceDTO> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<AttendanceDTO> records) {
+        this.records = records;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,52 @@
+package com.company.leaveapproval.dto;
+
+public class BulkCheckInItemResultDTO {
+    private int index; // position of the item in the submitted array
+    private String result; // CREATED, DUPLICATE or REJECTED
+    private Long attendanceId;
+    private String message;
+
+    // Constructors
+    public BulkCheckInItemResultDTO() {
+    }
+
+    public BulkCheckInItemResultDTO(int index, String result, Long attendanceId, String message) {
+        this.index = index;
+        this.result = result;
+        this.attendanceId = attendanceId;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public Long getAttendanceId() {
+        return attendanceId;
+    }
+
+    public void setAttendanceId(Long attendanceId) {
+        this.attendanceId = attendanceId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,60 @@
+package com.company.leaveapproval.dto;
+
+import java.util.List;
+
+public class BulkCheckInResponseDTO {
+    private int created;
+    private int duplicates;
+    private int rejected;
+    private List<BulkCheckInItemResultDTO> results;
+
+    // Constructors
+    public BulkCheckInResponseDTO() {
+    }
+
+    public BulkCheckInResponseDTO(List<BulkCheckInItemResultDTO> results) {
+        this.results = results;
+        for (BulkCheckInItemResultDTO item : results) {
+            if ("CREATED".equals(item.getResult())) {
+                created++;
+            } else if ("DUPLICATE".equals(item.getResult())) {
+                duplicates++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BulkCheckInItemResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BulkCheckInItemResultDTO> results) {
+        this.results = results;
+    }
+}
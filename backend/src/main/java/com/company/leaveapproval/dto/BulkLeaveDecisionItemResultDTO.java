@@ -0,0 +1,52 @@
+package com.company.leaveapproval.dto;
+
+public class BulkLeaveDecisionItemResultDTO {
+    private Long id;
+    private String result; // APPLIED, NOT_FOUND or CONFLICT
+    private String status; // status of the request after the call, null when not found
+    private String message;
+
+    // Constructors
+    public BulkLeaveDecisionItemResultDTO() {
+    }
+
+    public BulkLeaveDecisionItemResultDTO(Long id, String result, String status, String message) {
+        this.id = id;
+        this.result = result;
+        this.status = status;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,60 @@
+package com.company.leaveapproval.dto;
+
+import java.util.List;
+
+public class BulkLeaveDecisionResponseDTO {
+    private int applied;
+    private int notFound;
+    private int conflicts;
+    private List<BulkLeaveDecisionItemResultDTO> results;
+
+    // Constructors
+    public BulkLeaveDecisionResponseDTO() {
+    }
+
+    public BulkLeaveDecisionResponseDTO(List<BulkLeaveDecisionItemResultDTO> results) {
+        this.results = results;
+        for (BulkLeaveDecisionItemResultDTO item : results) {
+            if ("APPLIED".equals(item.getResult())) {
+                applied++;
+            } else if ("NOT_FOUND".equals(item.getResult())) {
+                notFound++;
+            } else {
+                conflicts++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    public int getApplied() {
+        return applied;
+    }
+
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+
+    public int getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(int notFound) {
+        this.notFound = notFound;
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(int conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public List<BulkLeaveDecisionItemResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BulkLeaveDecisionItemResultDTO> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,42 @@
+package com.company.leaveapproval.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Opaque keyset position in the (createdAt DESC, id DESC) leave request ordering
+public class LeaveRequestCursor {
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public LeaveRequestCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LeaveRequestCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new LeaveRequestCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid leave request cursor: " + cursor);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.company.leaveapproval.dto;
 
+import com.company.leaveapproval.entity.LeaveRequest;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -44,6 +45,30 @@ public class LeaveRequestDto {
         this.approvedByName = approvedByName;
     }
 
+    // Reads employee and approver, so both must be loaded (or loadable) when this is called
+    public static LeaveRequestDto fromEntity(LeaveRequest request) {
+        LeaveRequestDto dto = new LeaveRequestDto();
+        dto.setId(request.getId());
+        dto.setStartDate(request.getStartDate());
+        dto.setEndDate(request.getEndDate());
+        dto.setLeaveType(request.getLeaveType());
+        dto.setReason(request.getReason());
+        dto.setStatus(request.getStatus().name());
+        dto.setAdminComment(request.getAdminComment());
+        
+        // Handle employee information safely
+        if (request.getEmployee() != null) {
+            dto.setEmployeeName(request.getEmployee().getFirstName() + " " + request.getEmployee().getLastName());
+            dto.setEmployeeEmail(request.getEmployee().getEmail());
+        }
+        
+        // Handle approved by information safely
+        if (request.getApprovedBy() != null) {
+            dto.setApprovedByName(request.getApprovedBy().getFirstName() + " " + request.getApprovedBy().getLastName());
+        }
+        return dto;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
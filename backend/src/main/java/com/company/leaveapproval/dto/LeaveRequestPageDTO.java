@@ -0,0 +1,64 @@
+package com.company.leaveapproval.dto;
+
+import java.util.List;
+
+public class LeaveRequestPageDTO {
+    private List<LeaveRequestDto> records;
+    private String nextCursor; // null when there are no more records
+    private boolean hasMore;
+    private int size;
+    private long total; // all matches, may lag writes by the count cache TTL
+
+    // Constructors
+    public LeaveRequestPageDTO() {
+    }
+
+    public LeaveRequestPageDTO(List<LeaveRequestDto> records, String nextCursor, boolean hasMore, int size, long total) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.size = size;
+        this.total = total;
+    }
+
+    // Getters and Setters
+    public List<LeaveRequestDto> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<LeaveRequestDto> records) {
+        this.records = records;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,100 @@
+package com.company.leaveapproval.dto;
+
+import com.company.leaveapproval.entity.LeaveStatus;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Optional, AND-combined filters of the admin leave search; null fields do not filter.
+// from/to select requests overlapping that inclusive date window
+public class LeaveSearchCriteria {
+    private LeaveStatus status;
+    private String leaveType;
+    private String department;
+    private Long userId;
+    private LocalDate from;
+    private LocalDate to;
+
+    // Constructors
+    public LeaveSearchCriteria() {
+    }
+
+    public LeaveSearchCriteria(LeaveStatus status, String leaveType, String department, Long userId,
+                               LocalDate from, LocalDate to) {
+        this.status = status;
+        this.leaveType = leaveType;
+        this.department = department;
+        this.userId = userId;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Getters and Setters
+    public LeaveStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(LeaveStatus status) {
+        this.status = status;
+    }
+
+    public String getLeaveType() {
+        return leaveType;
+    }
+
+    public void setLeaveType(String leaveType) {
+        this.leaveType = leaveType;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    // Used as the count cache key
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LeaveSearchCriteria)) {
+            return false;
+        }
+        LeaveSearchCriteria that = (LeaveSearchCriteria) o;
+        return status == that.status && Objects.equals(leaveType, that.leaveType)
+            && Objects.equals(department, that.department) && Objects.equals(userId, that.userId)
+            && Objects.equals(from, that.from) && Objects.equals(to, that.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, leaveType, department, userId, from, to);
+    }
+}
@@ -0,0 +1,26 @@
+package com.company.leaveapproval.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PhotoUrlBatchRequest {
+    private List<String> objectKeys = new ArrayList<>();
+    private List<Long> attendanceIds = new ArrayList<>(); // resolve both photos of these attendance records
+
+    // Getters and Setters
+    public List<String> getObjectKeys() {
+        return objectKeys;
+    }
+
+    public void setObjectKeys(List<String> objectKeys) {
+        this.objectKeys = objectKeys;
+    }
+
+    public List<Long> getAttendanceIds() {
+        return attendanceIds;
+    }
+
+    public void setAttendanceIds(List<Long> attendanceIds) {
+        this.attendanceIds = attendanceIds;
+    }
+}
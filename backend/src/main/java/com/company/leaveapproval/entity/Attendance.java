@@ -3,15 +3,19 @@ package com.company.leaveapproval.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "attendance")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@DynamicUpdate // Only write changed columns so a background photo backfill is never overwritten by a check-out
 public class Attendance {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_seq")
+    @SequenceGenerator(name = "attendance_seq", sequenceName = "attendance_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -20,7 +24,7 @@ public class Attendance {
     private User user;
     
     @Column(name = "date", nullable = false)
-    private String date; // YYYY-MM-DD format
+    private LocalDate date;
     
     @Column(name = "check_in_time", nullable = false)
     private LocalDateTime checkInTime;
@@ -29,7 +33,7 @@ public class Attendance {
     private LocalDateTime checkOutTime;
     
     @Column(name = "status", nullable = false)
-    private String status; // "In Progress" or "Completed"
+    private String status; // "In Progress", "Completed" or "Auto-closed"
     
     @Column(name = "latitude")
     private Double latitude;
@@ -42,6 +46,14 @@ public class Attendance {
     
     @Column(name = "check_out_photo_url", length = 500)
     private String checkOutPhotoUrl; // MinIO URL for check-out photo
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "check_in_photo_status", length = 20)
+    private PhotoUploadStatus checkInPhotoStatus; // null when no photo was uploaded
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "check_out_photo_status", length = 20)
+    private PhotoUploadStatus checkOutPhotoStatus; // null when no photo was uploaded
     
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -71,11 +83,11 @@ public class Attendance {
         this.user = user;
     }
 
-    public String getDate() {
+    public LocalDate getDate() {
         return date;
     }
 
-    public void setDate(String date) {
+    public void setDate(LocalDate date) {
         this.date = date;
     }
 
@@ -135,6 +147,22 @@ public class Attendance {
         this.checkOutPhotoUrl = checkOutPhotoUrl;
     }
 
+    public PhotoUploadStatus getCheckInPhotoStatus() {
+        return checkInPhotoStatus;
+    }
+
+    public void setCheckInPhotoStatus(PhotoUploadStatus checkInPhotoStatus) {
+        this.checkInPhotoStatus = checkInPhotoStatus;
+    }
+
+    public PhotoUploadStatus getCheckOutPhotoStatus() {
+        return checkOutPhotoStatus;
+    }
+
+    public void setCheckOutPhotoStatus(PhotoUploadStatus checkOutPhotoStatus) {
+        this.checkOutPhotoStatus = checkOutPhotoStatus;
+    }
+
     // Deprecated getters for backward compatibility
     public String getCheckInPhoto() {
         return checkInPhotoUrl;
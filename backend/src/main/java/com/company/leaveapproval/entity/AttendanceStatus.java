@@ -2,7 +2,9 @@ package com.company.leaveapproval.entity;
 
 public enum AttendanceStatus {
     IN_PROGRESS("In Progress"),
-    COMPLETED("Completed");
+    COMPLETED("Completed"),
+    // Stale duplicate open session closed by migration V1_0_11; check-out time equals check-in time
+    AUTO_CLOSED("Auto-closed");
 
     private final String value;
 
@@ -0,0 +1,7 @@
+package com.company.leaveapproval.entity;
+
+public enum PhotoUploadStatus {
+    PENDING,
+    UPLOADED,
+    FAILED
+}
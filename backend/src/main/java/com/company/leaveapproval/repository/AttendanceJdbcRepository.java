@@ -0,0 +1,164 @@
+package com.company.leaveapproval.repository;
+
+import com.company.leaveapproval.entity.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+// Plain JDBC access for bulk attendance writes that would otherwise cost one round trip per row
+@Repository
+public class AttendanceJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+    // Must match the INCREMENT BY of attendance_seq and the allocationSize on Attendance
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String ALLOCATE_IDS_SQL = "SELECT nextval('attendance_seq') FROM generate_series(1, ?)";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO attendance (id, user_id, date, check_in_time, check_out_time, status, latitude, longitude, " +
+        "check_in_photo_url, check_out_photo_url, check_in_photo_status, check_out_photo_status, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String INSERTED_IDS_SQL = "SELECT id FROM attendance WHERE id BETWEEN ? AND ?";
+
+    // Rows with a photo dated in [from, before) that have not been through the given retention stage, after the
+    // (date, id) position in index order. The stage is inlined so the planner can match the partial index.
+    // Inline data URLs are reduced to their prefix so a chunk never drags the legacy base64 payloads over the wire
+    private static final String PHOTO_CHUNK_SQL =
+        "SELECT id, date, " +
+        "CASE WHEN check_in_photo_url LIKE 'data:%' THEN 'data:' ELSE check_in_photo_url END AS check_in_photo_url, " +
+        "CASE WHEN check_out_photo_url LIKE 'data:%' THEN 'data:' ELSE check_out_photo_url END AS check_out_photo_url " +
+        "FROM attendance WHERE photo_retention_stage < %d " +
+        "AND (check_in_photo_url IS NOT NULL OR check_out_photo_url IS NOT NULL) " +
+        "AND date >= ? AND date < ? AND (date, id) > (?, ?) ORDER BY date, id LIMIT ?";
+
+    private static final String UPDATE_PHOTO_URLS_SQL =
+        "UPDATE attendance SET check_in_photo_url = ?, check_out_photo_url = ?, updated_at = ? WHERE id = ?";
+
+    private static final String MARK_RETENTION_STAGE_SQL =
+        "UPDATE attendance SET photo_retention_stage = ? WHERE id = ? AND photo_retention_stage < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Inserts the rows with JDBC batching and returns their ids in input order. A row that would break a unique
+    // index (a second open session, e.g. from a concurrent single check-in) is skipped instead of failing the
+    // batch, and its id is null. Call inside a transaction so the inserted rows can be read back
+    public List<Long> batchInsert(List<Attendance> attendances) {
+        List<Long> ids = allocateIds(attendances.size());
+        jdbcTemplate.execute((Connection connection) -> {
+            // Bind timestamps the same way Hibernate does with hibernate.jdbc.time_zone=UTC
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (int start = 0; start < attendances.size(); start += BATCH_SIZE) {
+                    int end = Math.min(start + BATCH_SIZE, attendances.size());
+                    for (int i = start; i < end; i++) {
+                        Attendance attendance = attendances.get(i);
+                        statement.setLong(1, ids.get(i));
+                        statement.setLong(2, attendance.getUser().getId());
+                        statement.setDate(3, Date.valueOf(attendance.getDate()));
+                        statement.setTimestamp(4, toTimestamp(attendance.getCheckInTime()), utc);
+                        statement.setTimestamp(5, toTimestamp(attendance.getCheckOutTime()), utc);
+                        statement.setString(6, attendance.getStatus());
+                        statement.setObject(7, attendance.getLatitude(), Types.DOUBLE);
+                        statement.setObject(8, attendance.getLongitude(), Types.DOUBLE);
+                        statement.setString(9, attendance.getCheckInPhotoUrl());
+                        statement.setString(10, attendance.getCheckOutPhotoUrl());
+                        statement.setString(11, attendance.getCheckInPhotoStatus() != null ? attendance.getCheckInPhotoStatus().name() : null);
+                        statement.setString(12, attendance.getCheckOutPhotoStatus() != null ? attendance.getCheckOutPhotoStatus().name() : null);
+                        statement.setTimestamp(13, toTimestamp(attendance.getCreatedAt()), utc);
+                        statement.setTimestamp(14, toTimestamp(attendance.getUpdatedAt()), utc);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            return null;
+        });
+        // Update counts are no help here: with reWriteBatchedInserts the driver reports SUCCESS_NO_INFO
+        Set<Long> inserted = new HashSet<>(jdbcTemplate.queryForList(INSERTED_IDS_SQL, Long.class,
+            Collections.min(ids), Collections.max(ids)));
+        List<Long> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(inserted.contains(id) ? id : null);
+        }
+        return result;
+    }
+
+    // Id, date and photo columns only; the rows are not attached to any persistence context
+    public List<Attendance> findPhotoChunk(int stage, LocalDate from, LocalDate before, LocalDate afterDate, long afterId,
+                                           int limit) {
+        return jdbcTemplate.query(String.format(PHOTO_CHUNK_SQL, stage), (rs, rowNum) -> {
+            Attendance attendance = new Attendance();
+            attendance.setId(rs.getLong("id"));
+            attendance.setDate(rs.getDate("date").toLocalDate());
+            attendance.setCheckInPhotoUrl(rs.getString("check_in_photo_url"));
+            attendance.setCheckOutPhotoUrl(rs.getString("check_out_photo_url"));
+            return attendance;
+        }, Date.valueOf(from), Date.valueOf(before), Date.valueOf(afterDate), afterId, limit);
+    }
+
+    // Records that the rows have been through the retention stage, in JDBC batches
+    public void markRetentionStage(List<Long> ids, int stage) {
+        for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+            List<Long> batch = ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()));
+            jdbcTemplate.batchUpdate(MARK_RETENTION_STAGE_SQL, batch, batch.size(), (statement, id) -> {
+                statement.setInt(1, stage);
+                statement.setLong(2, id);
+                statement.setInt(3, stage);
+            });
+        }
+    }
+
+    // Writes both photo columns of each row in JDBC batches
+    public void batchUpdatePhotoUrls(List<Attendance> attendances) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // Bound like the insert path, see batchInsert
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        for (int start = 0; start < attendances.size(); start += BATCH_SIZE) {
+            List<Attendance> batch = attendances.subList(start, Math.min(start + BATCH_SIZE, attendances.size()));
+            jdbcTemplate.batchUpdate(UPDATE_PHOTO_URLS_SQL, batch, batch.size(), (statement, attendance) -> {
+                statement.setString(1, attendance.getCheckInPhotoUrl());
+                statement.setString(2, attendance.getCheckOutPhotoUrl());
+                statement.setTimestamp(3, now, utc);
+                statement.setLong(4, attendance.getId());
+            });
+        }
+    }
+
+    // Takes ids from attendance_seq in the same pooled blocks Hibernate uses: each nextval value v covers v-49 .. v
+    private List<Long> allocateIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        if (count == 0) {
+            return ids;
+        }
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        List<Long> highValues = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, blocks);
+        for (Long high : highValues) {
+            for (long id = high - ID_ALLOCATION_SIZE + 1; id <= high && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
@@ -1,24 +1,152 @@
 package com.company.leaveapproval.repository;
 
 import com.company.leaveapproval.entity.Attendance;
+import com.company.leaveapproval.entity.PhotoUploadStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
-    
+
     // Get attendance records for a user, sorted by date descending (latest first)
     @Query("SELECT a FROM Attendance a WHERE a.user.id = :userId ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
     List<Attendance> findByUserIdOrderByDateDesc(Long userId);
-    
+
     // Get all attendance records, sorted by date descending (latest first)
     @Query("SELECT a FROM Attendance a ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
     List<Attendance> findAllOrderByDateDesc();
-    
+
+    // Keyset pagination: first page of all records (limit taken from pageable)
+    @Query("SELECT a FROM Attendance a ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
+    List<Attendance> findFirstPage(Pageable pageable);
+
+    // Keyset pagination: records strictly after the given (date, checkInTime, id) position
+    @Query("SELECT a FROM Attendance a WHERE a.date < :date " +
+           "OR (a.date = :date AND (a.checkInTime < :checkInTime OR (a.checkInTime = :checkInTime AND a.id < :id))) " +
+           "ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
+    List<Attendance> findPageAfter(LocalDate date, LocalDateTime checkInTime, Long id, Pageable pageable);
+
+    // Keyset pagination: first page of a user's records
+    @Query("SELECT a FROM Attendance a WHERE a.user.id = :userId ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
+    List<Attendance> findFirstPageByUserId(Long userId, Pageable pageable);
+
+    // Keyset pagination: a user's records strictly after the given (date, checkInTime, id) position
+    @Query("SELECT a FROM Attendance a WHERE a.user.id = :userId AND (a.date < :date " +
+           "OR (a.date = :date AND (a.checkInTime < :checkInTime OR (a.checkInTime = :checkInTime AND a.id < :id)))) " +
+           "ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
+    List<Attendance> findPageAfterByUserId(Long userId, LocalDate date, LocalDateTime checkInTime, Long id, Pageable pageable);
+
+    // Records in an inclusive date range, served by the (date, check_in_time, id) index
+    @Query("SELECT a FROM Attendance a WHERE a.date >= :from AND a.date <= :to ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
+    List<Attendance> findByDateRange(LocalDate from, LocalDate to);
+
+    // A user's records in an inclusive date range, served by the (user_id, date, check_in_time) index
+    @Query("SELECT a FROM Attendance a WHERE a.user.id = :userId AND a.date >= :from AND a.date <= :to " +
+           "ORDER BY a.date DESC, a.checkInTime DESC, a.id DESC")
+    List<Attendance> findByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to);
+
+    // Forward-only cursor over a date range for exports; must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Attendance a WHERE a.date >= :from AND a.date <= :to ORDER BY a.date, a.checkInTime, a.id")
+    Stream<Attendance> streamByDateRange(LocalDate from, LocalDate to);
+
+    // Forward-only cursor over a user's records in a date range for exports
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Attendance a WHERE a.user.id = :userId AND a.date >= :from AND a.date <= :to " +
+           "ORDER BY a.date, a.checkInTime, a.id")
+    Stream<Attendance> streamByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to);
+
+    // (userId, checkInTime) pairs already stored for the given users in a date range, used to detect replays
+    @Query("SELECT a.user.id, a.checkInTime FROM Attendance a WHERE a.user.id IN :userIds AND a.date >= :from AND a.date <= :to")
+    List<Object[]> findCheckInKeys(Collection<Long> userIds, LocalDate from, LocalDate to);
+
+    // The user's open (not yet checked out) session, served by the partial unique index on user_id
+    @Query("SELECT a FROM Attendance a WHERE a.user.id = :userId AND a.checkOutTime IS NULL")
+    Optional<Attendance> findOpenSessionByUserId(Long userId);
+
+    // Users among the given ids that currently have an open session
+    @Query("SELECT a.user.id FROM Attendance a WHERE a.user.id IN :userIds AND a.checkOutTime IS NULL")
+    List<Long> findUserIdsWithOpenSession(Collection<Long> userIds);
+
+    // Number of stored photo keys, used to size the reconciler's Bloom filter
+    @Query(value = "SELECT (SELECT COUNT(*) FROM attendance WHERE check_in_photo_url IS NOT NULL AND check_in_photo_url NOT LIKE 'data:%') + " +
+                   "(SELECT COUNT(*) FROM attendance WHERE check_out_photo_url IS NOT NULL AND check_out_photo_url NOT LIKE 'data:%')",
+           nativeQuery = true)
+    long countPhotoKeys();
+
+    // Forward-only cursor over every stored photo key (legacy inline data URLs excluded); must be consumed
+    // inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT check_in_photo_url FROM attendance WHERE check_in_photo_url IS NOT NULL AND check_in_photo_url NOT LIKE 'data:%' " +
+                   "UNION ALL " +
+                   "SELECT check_out_photo_url FROM attendance WHERE check_out_photo_url IS NOT NULL AND check_out_photo_url NOT LIKE 'data:%'",
+           nativeQuery = true)
+    Stream<String> streamPhotoKeys();
+
+    // The subset of the given object keys that some record still points at
+    @Query(value = "SELECT check_in_photo_url FROM attendance WHERE check_in_photo_url IN (:objectKeys) " +
+                   "UNION " +
+                   "SELECT check_out_photo_url FROM attendance WHERE check_out_photo_url IN (:objectKeys)",
+           nativeQuery = true)
+    List<String> findReferencedPhotoKeys(Collection<String> objectKeys);
+
+    // Records whose check-in or check-out photo upload is in one of the given states
+    @Query("SELECT a FROM Attendance a WHERE a.checkInPhotoStatus IN :statuses OR a.checkOutPhotoStatus IN :statuses ORDER BY a.id")
+    List<Attendance> findByPhotoUploadStatusIn(Collection<PhotoUploadStatus> statuses);
+
+    // Backfill the check-in photo without touching any other column
+    @Modifying
+    @Transactional
+    @Query("UPDATE Attendance a SET a.checkInPhotoUrl = :photoUrl, a.checkInPhotoStatus = :status WHERE a.id = :id")
+    int updateCheckInPhoto(Long id, String photoUrl, PhotoUploadStatus status);
+
+    // Backfill the check-out photo without touching any other column
+    @Modifying
+    @Transactional
+    @Query("UPDATE Attendance a SET a.checkOutPhotoUrl = :photoUrl, a.checkOutPhotoStatus = :status WHERE a.id = :id")
+    int updateCheckOutPhoto(Long id, String photoUrl, PhotoUploadStatus status);
+
+    // Check-in uploads pending for over staleMinutes; their queued bytes were lost with the process that held them.
+    // The cutoff is taken from the database clock, the one the updated_at trigger stamps rows with
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE attendance SET check_in_photo_status = 'FAILED' WHERE check_in_photo_status = 'PENDING' " +
+                   "AND updated_at < CURRENT_TIMESTAMP - :staleMinutes * INTERVAL '1 minute'",
+           nativeQuery = true)
+    int markStaleCheckInUploads(long staleMinutes);
+
+    // Check-out uploads pending for over staleMinutes, by the database clock
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE attendance SET check_out_photo_status = 'FAILED' WHERE check_out_photo_status = 'PENDING' " +
+                   "AND updated_at < CURRENT_TIMESTAMP - :staleMinutes * INTERVAL '1 minute'",
+           nativeQuery = true)
+    int markStaleCheckOutUploads(long staleMinutes);
+
     // Legacy method for backward compatibility
     List<Attendance> findByUserId(Long userId);
-    
+
     void deleteByUserId(Long userId);
-}
\ No newline at end of file
+}
@@ -3,19 +3,141 @@ package com.company.leaveapproval.repository;
 import com.company.leaveapproval.entity.LeaveRequest;
 import com.company.leaveapproval.entity.LeaveStatus;
 import com.company.leaveapproval.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long> {
+public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long>, LeaveRequestSearchRepository {
     List<LeaveRequest> findByEmployee(User employee);
+
+    // The list endpoints render employee and approver names for every row; the entity graph left-joins both
+    // into the same select instead of lazily loading them one row at a time
+    @EntityGraph(attributePaths = {"employee", "approvedBy"})
     List<LeaveRequest> findByStatus(LeaveStatus status);
+
+    @EntityGraph(attributePaths = {"employee", "approvedBy"})
     List<LeaveRequest> findByEmployeeOrderByCreatedAtDesc(User employee);
+
+    @EntityGraph(attributePaths = {"employee", "approvedBy"})
     List<LeaveRequest> findAllByOrderByCreatedAtDesc();
+
     List<LeaveRequest> findByEmployeeId(Long employeeId);
     void deleteByEmployeeId(Long employeeId);
     List<LeaveRequest> findByApprovedBy(User approvedBy);
     void deleteByApprovedBy(User approvedBy);
-}
\ No newline at end of file
+
+    // Pending requests with the PENDING literal inlined, so the planner can always use the partial index
+    @Query("SELECT l.id FROM LeaveRequest l WHERE l.status = com.company.leaveapproval.entity.LeaveStatus.PENDING")
+    List<Long> findPendingIds();
+
+    @EntityGraph(attributePaths = {"employee", "approvedBy"})
+    @Query("SELECT l FROM LeaveRequest l WHERE l.status = com.company.leaveapproval.entity.LeaveStatus.PENDING " +
+           "AND l.id IN :ids")
+    List<LeaveRequest> findPendingByIdIn(Collection<Long> ids);
+
+    // Decides every still-pending request among ids in one statement and returns the ids it changed. Requests
+    // decided concurrently no longer match status = 'PENDING', so they are left alone instead of overwritten.
+    // The row lock taken by the UPDATE makes two overlapping calls each see the other's decision as a conflict.
+    // Run as a result query rather than @Modifying because of RETURNING; @Transactional lifts the read-only default
+    @Transactional
+    @Query(value = "UPDATE leave_requests SET status = :status, admin_comment = :adminComment, approved_by = :adminId, " +
+                   "approved_at = :decidedAt, updated_at = :decidedAt " +
+                   "WHERE id IN (:ids) AND status = 'PENDING' RETURNING id",
+           nativeQuery = true)
+    List<Long> decidePending(Collection<Long> ids, String status, String adminComment, Long adminId,
+                             LocalDateTime decidedAt);
+
+    @EntityGraph(attributePaths = {"employee", "approvedBy"})
+    @Query("SELECT l FROM LeaveRequest l WHERE l.id IN :ids")
+    List<LeaveRequest> findWithUsersByIdIn(Collection<Long> ids);
+
+    // Request count and approved days (inclusive of both ends) for one employee
+    @Query(value = "SELECT COUNT(*) AS \"totalLeaves\", " +
+                   "COALESCE(SUM(CASE WHEN status = 'APPROVED' THEN end_date - start_date + 1 END), 0) AS \"approvedDays\" " +
+                   "FROM leave_requests WHERE user_id = :employeeId",
+           nativeQuery = true)
+    LeaveTotals getLeaveTotals(Long employeeId);
+
+    // Approved requests starting in [from, to] and their days
+    @Query(value = "SELECT COUNT(*) AS \"totalLeaves\", COALESCE(SUM(end_date - start_date + 1), 0) AS \"approvedDays\" " +
+                   "FROM leave_requests WHERE user_id = :employeeId AND status = 'APPROVED' " +
+                   "AND start_date >= :from AND start_date <= :to",
+           nativeQuery = true)
+    LeaveTotals getApprovedTotalsStartingBetween(Long employeeId, LocalDate from, LocalDate to);
+
+    // Approved requests and days per start month and leave type, for requests starting in [from, to]
+    @Query(value = "SELECT to_char(date_trunc('month', start_date), 'YYYY-MM') AS \"month\", leave_type AS \"leaveType\", " +
+                   "COUNT(*) AS \"leaves\", SUM(end_date - start_date + 1) AS \"days\" " +
+                   "FROM leave_requests WHERE user_id = :employeeId AND status = 'APPROVED' " +
+                   "AND start_date >= :from AND start_date <= :to " +
+                   "GROUP BY date_trunc('month', start_date), leave_type ORDER BY date_trunc('month', start_date), leave_type",
+           nativeQuery = true)
+    List<MonthTypeDays> getApprovedDaysByStartMonthAndType(Long employeeId, LocalDate from, LocalDate to);
+
+    // Approved days actually falling in each month of the year: a request crossing a month boundary is split
+    // at the boundary and each part counted in its own month. leaves is the number of requests touching the month
+    @Query(value = "SELECT to_char(m.month_start, 'YYYY-MM') AS \"month\", lr.leave_type AS \"leaveType\", " +
+                   "COUNT(*) AS \"leaves\", " +
+                   "SUM(LEAST(lr.end_date, CAST(m.month_start + INTERVAL '1 month' - INTERVAL '1 day' AS date)) " +
+                   "- GREATEST(lr.start_date, CAST(m.month_start AS date)) + 1) AS \"days\" " +
+                   "FROM generate_series(CAST(:yearStart AS timestamp), CAST(:yearStart AS timestamp) + INTERVAL '11 months', " +
+                   "INTERVAL '1 month') AS m(month_start) " +
+                   "JOIN leave_requests lr ON lr.user_id = :employeeId AND lr.status = 'APPROVED' " +
+                   "AND lr.start_date < m.month_start + INTERVAL '1 month' AND lr.end_date >= m.month_start " +
+                   "GROUP BY m.month_start, lr.leave_type ORDER BY m.month_start, lr.leave_type",
+           nativeQuery = true)
+    List<MonthTypeDays> getApprovedDaysHistogram(Long employeeId, LocalDate yearStart);
+
+    @Query(value = "SELECT l.id AS id, l.startDate AS startDate, l.endDate AS endDate, l.leaveType AS leaveType, " +
+                   "l.reason AS reason, l.status AS status, l.adminComment AS adminComment, l.createdAt AS createdAt, " +
+                   "l.updatedAt AS updatedAt, l.approvedAt AS approvedAt " +
+                   "FROM LeaveRequest l WHERE l.employee.id = :employeeId",
+           countQuery = "SELECT COUNT(l) FROM LeaveRequest l WHERE l.employee.id = :employeeId")
+    Page<LeaveDetail> findDetailsByEmployeeId(Long employeeId, Pageable pageable);
+
+    @Query(value = "SELECT l.id AS id, l.startDate AS startDate, l.endDate AS endDate, l.leaveType AS leaveType, " +
+                   "l.reason AS reason, l.status AS status, l.adminComment AS adminComment, l.createdAt AS createdAt, " +
+                   "l.updatedAt AS updatedAt, l.approvedAt AS approvedAt " +
+                   "FROM LeaveRequest l WHERE l.employee.id = :employeeId AND l.status = :status " +
+                   "AND l.startDate >= :from AND l.startDate <= :to",
+           countQuery = "SELECT COUNT(l) FROM LeaveRequest l WHERE l.employee.id = :employeeId AND l.status = :status " +
+                        "AND l.startDate >= :from AND l.startDate <= :to")
+    Page<LeaveDetail> findDetailsByEmployeeIdAndStatusStartingBetween(Long employeeId, LeaveStatus status,
+                                                                      LocalDate from, LocalDate to, Pageable pageable);
+
+    interface LeaveTotals {
+        long getTotalLeaves();
+        long getApprovedDays();
+    }
+
+    interface MonthTypeDays {
+        String getMonth(); // yyyy-MM
+        String getLeaveType();
+        long getLeaves();
+        long getDays();
+    }
+
+    // Same JSON shape as a serialized LeaveRequest (employee and approver are never serialized)
+    interface LeaveDetail {
+        Long getId();
+        LocalDate getStartDate();
+        LocalDate getEndDate();
+        String getLeaveType();
+        String getReason();
+        LeaveStatus getStatus();
+        String getAdminComment();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+        LocalDateTime getApprovedAt();
+    }
+}
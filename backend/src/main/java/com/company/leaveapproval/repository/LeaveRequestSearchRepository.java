@@ -0,0 +1,17 @@
+package com.company.leaveapproval.repository;
+
+import com.company.leaveapproval.dto.LeaveRequestCursor;
+import com.company.leaveapproval.dto.LeaveSearchCriteria;
+import com.company.leaveapproval.entity.LeaveRequest;
+
+import java.util.List;
+
+// Criteria-built admin search, mixed into LeaveRequestRepository
+public interface LeaveRequestSearchRepository {
+
+    // Matching requests in (createdAt DESC, id DESC) order strictly after the cursor (null for the first page),
+    // with employee and approver fetched in the same statement
+    List<LeaveRequest> search(LeaveSearchCriteria criteria, LeaveRequestCursor after, int limit);
+
+    long countMatching(LeaveSearchCriteria criteria);
+}
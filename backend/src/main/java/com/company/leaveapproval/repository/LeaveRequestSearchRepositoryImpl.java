@@ -0,0 +1,90 @@
+package com.company.leaveapproval.repository;
+
+import com.company.leaveapproval.dto.LeaveRequestCursor;
+import com.company.leaveapproval.dto.LeaveSearchCriteria;
+import com.company.leaveapproval.entity.LeaveRequest;
+import com.company.leaveapproval.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LeaveRequestSearchRepositoryImpl implements LeaveRequestSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<LeaveRequest> search(LeaveSearchCriteria criteria, LeaveRequestCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LeaveRequest> query = cb.createQuery(LeaveRequest.class);
+        Root<LeaveRequest> leave = query.from(LeaveRequest.class);
+        // A fetch doubles as the join the department filter needs
+        Join<LeaveRequest, User> employee = (Join<LeaveRequest, User>) leave.<LeaveRequest, User>fetch("employee", JoinType.INNER);
+        leave.fetch("approvedBy", JoinType.LEFT);
+
+        List<Predicate> predicates = filters(cb, leave, employee, criteria);
+        if (after != null) {
+            // Keyset: strictly after the (createdAt, id) position of the previous page's last row
+            predicates.add(cb.or(
+                cb.lessThan(leave.get("createdAt"), after.getCreatedAt()),
+                cb.and(cb.equal(leave.get("createdAt"), after.getCreatedAt()), cb.lessThan(leave.get("id"), after.getId()))
+            ));
+        }
+        query.select(leave)
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.desc(leave.get("createdAt")), cb.desc(leave.get("id")));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    @Override
+    public long countMatching(LeaveSearchCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<LeaveRequest> leave = query.from(LeaveRequest.class);
+        // The employee join is only needed to filter by department
+        From<LeaveRequest, User> employee = criteria.getDepartment() != null ? leave.join("employee") : null;
+
+        query.select(cb.count(leave))
+            .where(filters(cb, leave, employee, criteria).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<Predicate> filters(CriteriaBuilder cb, Root<LeaveRequest> leave, From<LeaveRequest, User> employee,
+                                    LeaveSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.getStatus() != null) {
+            predicates.add(cb.equal(leave.get("status"), criteria.getStatus()));
+        }
+        if (criteria.getLeaveType() != null) {
+            predicates.add(cb.equal(leave.get("leaveType"), criteria.getLeaveType()));
+        }
+        if (criteria.getUserId() != null) {
+            predicates.add(cb.equal(leave.get("employee").get("id"), criteria.getUserId()));
+        }
+        if (criteria.getDepartment() != null) {
+            predicates.add(cb.equal(employee.get("department"), criteria.getDepartment()));
+        }
+        // Requests overlapping the inclusive [from, to] window
+        if (criteria.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(leave.get("endDate"), criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(leave.get("startDate"), criteria.getTo()));
+        }
+        return predicates;
+    }
+}
@@ -0,0 +1,56 @@
+package com.company.leaveapproval.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Resume points of the retention jobs, one (date, id) position per job
+@Repository
+public class RetentionCheckpointRepository {
+
+    private static final String FIND_SQL = "SELECT last_date, last_id FROM retention_checkpoint WHERE job_name = ?";
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO retention_checkpoint (job_name, last_date, last_id, updated_at) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (job_name) DO UPDATE SET last_date = EXCLUDED.last_date, last_id = EXCLUDED.last_id, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // null when the job has never checkpointed
+    public Checkpoint find(String jobName) {
+        List<Checkpoint> checkpoints = jdbcTemplate.query(FIND_SQL,
+            (rs, rowNum) -> new Checkpoint(rs.getDate("last_date").toLocalDate(), rs.getLong("last_id")), jobName);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    public void save(String jobName, Checkpoint checkpoint) {
+        jdbcTemplate.update(UPSERT_SQL, jobName, Date.valueOf(checkpoint.getDate()), checkpoint.getId(),
+            Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public static class Checkpoint {
+        private final LocalDate date;
+        private final long id;
+
+        public Checkpoint(LocalDate date, long id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+}
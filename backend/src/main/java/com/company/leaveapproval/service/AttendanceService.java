@@ -1,27 +1,95 @@
 package com.company.leaveapproval.service;
 
+import com.company.leaveapproval.dto.AttendanceCursor;
 import com.company.leaveapproval.dto.AttendanceDTO;
+import com.company.leaveapproval.dto.AttendancePageDTO;
+import com.company.leaveapproval.dto.BulkCheckInItemResultDTO;
+import com.company.leaveapproval.dto.BulkCheckInResponseDTO;
+import com.company.leaveapproval.dto.PhotoUrlBatchRequest;
 import com.company.leaveapproval.entity.Attendance;
+import com.company.leaveapproval.entity.PhotoUploadStatus;
 import com.company.leaveapproval.entity.User;
+import com.company.leaveapproval.repository.AttendanceJdbcRepository;
 import com.company.leaveapproval.repository.AttendanceRepository;
 import com.company.leaveapproval.repository.UserRepository;
+import com.company.leaveapproval.service.PhotoUploadService.PhotoSlot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class AttendanceService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PHOTO_URL_BATCH = 500;
+    private static final int MAX_BULK_CHECK_INS = 10000;
+    private static final String OPEN_SESSION_INDEX = "ux_attendance_open_session";
+    private static final String OPEN_SESSION_EXISTS = "Check-in failed: an open attendance session already exists for user ID: ";
+    // Rows between persistence-context clears while exporting, keeps export memory flat
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+    private static final LocalDate EXPORT_MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate EXPORT_MAX_DATE = LocalDate.of(9999, 12, 31);
+    private static final String CSV_HEADER =
+        "id,userId,date,checkInTime,checkOutTime,status,latitude,longitude,checkInPhoto,checkOutPhoto";
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private MinIOService minIOService;
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private PhotoUploadService photoUploadService;
+
+    @Autowired
+    private PhotoUrlResolver photoUrlResolver;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public AttendanceDTO checkIn(AttendanceDTO attendanceDTO) {
         try {
@@ -42,12 +110,14 @@ public class AttendanceService {
             if (attendanceDTO.getLongitude() != null) {
                 attendance.setLongitude(attendanceDTO.getLongitude());
             }
+            Callable<String> pendingUpload = null;
             if (attendanceDTO.getCheckInPhoto() != null && !attendanceDTO.getCheckInPhoto().isEmpty()) {
                 // Check if it's base64 data or already a MinIO URL
                 if (attendanceDTO.getCheckInPhoto().startsWith("data:image/")) {
                     // Upload base64 image to MinIO
-                    String photoUrl = minIOService.uploadBase64Image(attendanceDTO.getCheckInPhoto(), "check-in");
-                    attendance.setCheckInPhotoUrl(photoUrl);
+                    String base64Photo = attendanceDTO.getCheckInPhoto();
+                    pendingUpload = preparePhotoUpload(attendance, PhotoSlot.CHECK_IN,
+                        () -> storageService.uploadBase64Image(base64Photo, "check-in"));
                 } else {
                     // Already a MinIO URL
                     attendance.setCheckInPhotoUrl(attendanceDTO.getCheckInPhoto());
@@ -56,26 +126,132 @@ public class AttendanceService {
                 // Check if it's base64 data or already a MinIO URL
                 if (attendanceDTO.getPhoto().startsWith("data:image/")) {
                     // Upload base64 image to MinIO
-                    String photoUrl = minIOService.uploadBase64Image(attendanceDTO.getPhoto(), "check-in");
-                    attendance.setCheckInPhotoUrl(photoUrl);
+                    String base64Photo = attendanceDTO.getPhoto();
+                    pendingUpload = preparePhotoUpload(attendance, PhotoSlot.CHECK_IN,
+                        () -> storageService.uploadBase64Image(base64Photo, "check-in"));
                 } else {
                     // Already a MinIO URL
                     attendance.setCheckInPhotoUrl(attendanceDTO.getPhoto());
                 }
             }
             
-            Attendance savedAttendance = attendanceRepository.save(attendance);
+            Attendance savedAttendance = attendanceRepository.saveAndFlush(attendance);
+            submitPendingUpload(savedAttendance, PhotoSlot.CHECK_IN, pendingUpload);
             return convertToDTO(savedAttendance);
         } catch (Exception e) {
-            throw new RuntimeException("Check-in failed: " + e.getMessage() + ". Please ensure the user exists and all required fields are provided.");
+            if (isOpenSessionConflict(e)) {
+                throw new RuntimeException(OPEN_SESSION_EXISTS + attendanceDTO.getUserId());
+            }
+            throw new RuntimeException("Check-in failed: " + e.getMessage() + ". Please ensure the user exists and all required fields are provided.", e);
+        }
+    }
+
+    // Replays buffered check-ins from kiosks and offline clients; one user query, one duplicate query and batched inserts
+    public BulkCheckInResponseDTO bulkCheckIn(List<AttendanceDTO> items) {
+        if (items.size() > MAX_BULK_CHECK_INS) {
+            throw new RuntimeException("Too many check-ins in one request, limit is " + MAX_BULK_CHECK_INS);
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        LocalDate minDate = null;
+        LocalDate maxDate = null;
+        for (AttendanceDTO item : items) {
+            if (item.getUserId() != null) {
+                userIds.add(item.getUserId());
+            }
+            if (item.getDate() != null) {
+                minDate = (minDate == null || item.getDate().isBefore(minDate)) ? item.getDate() : minDate;
+                maxDate = (maxDate == null || item.getDate().isAfter(maxDate)) ? item.getDate() : maxDate;
+            }
+        }
+        Set<Long> knownUserIds = userIds.isEmpty() ? new HashSet<>() : new HashSet<>(userRepository.findExistingIds(userIds));
+        Set<String> seenCheckIns = new HashSet<>();
+        if (!knownUserIds.isEmpty() && minDate != null) {
+            for (Object[] key : attendanceRepository.findCheckInKeys(knownUserIds, minDate, maxDate)) {
+                seenCheckIns.add(checkInKey((Long) key[0], (LocalDateTime) key[1]));
+            }
+        }
+
+        // Users with an open session, an open row for them would violate the one-open-session index
+        Set<Long> openSessionUsers = knownUserIds.isEmpty()
+            ? new HashSet<>()
+            : new HashSet<>(attendanceRepository.findUserIdsWithOpenSession(knownUserIds));
+
+        Map<Long, User> userReferences = new HashMap<>();
+        BulkCheckInItemResultDTO[] results = new BulkCheckInItemResultDTO[items.size()];
+        List<Attendance> rows = new ArrayList<>();
+        List<Integer> rowIndexes = new ArrayList<>();
+        List<Callable<String>> checkInUploads = new ArrayList<>();
+        List<Callable<String>> checkOutUploads = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            AttendanceDTO item = items.get(i);
+            if (item.getUserId() == null || item.getDate() == null || item.getCheckInTime() == null || item.getStatus() == null) {
+                results[i] = new BulkCheckInItemResultDTO(i, "REJECTED", null, "userId, date, checkInTime and status are required");
+                continue;
+            }
+            if (!knownUserIds.contains(item.getUserId())) {
+                results[i] = new BulkCheckInItemResultDTO(i, "REJECTED", null, "User not found with ID: " + item.getUserId());
+                continue;
+            }
+            if (!seenCheckIns.add(checkInKey(item.getUserId(), item.getCheckInTime()))) {
+                results[i] = new BulkCheckInItemResultDTO(i, "DUPLICATE", null, "Check-in already recorded");
+                continue;
+            }
+            if (item.getCheckOutTime() == null && !openSessionUsers.add(item.getUserId())) {
+                results[i] = new BulkCheckInItemResultDTO(i, "REJECTED", null, "An open attendance session already exists for this user");
+                continue;
+            }
+            try {
+                Attendance attendance = new Attendance();
+                attendance.setUser(userReferences.computeIfAbsent(item.getUserId(), userRepository::getReferenceById));
+                attendance.setDate(item.getDate());
+                attendance.setCheckInTime(item.getCheckInTime());
+                attendance.setCheckOutTime(item.getCheckOutTime());
+                attendance.setStatus(item.getStatus());
+                attendance.setLatitude(item.getLatitude());
+                attendance.setLongitude(item.getLongitude());
+                String checkInPhoto = item.getCheckInPhoto() != null ? item.getCheckInPhoto() : item.getPhoto();
+                checkInUploads.add(preparePhoto(attendance, PhotoSlot.CHECK_IN, checkInPhoto, "check-in"));
+                checkOutUploads.add(preparePhoto(attendance, PhotoSlot.CHECK_OUT, item.getCheckOutPhoto(), "check-out"));
+                rows.add(attendance);
+                rowIndexes.add(i);
+            } catch (Exception e) {
+                results[i] = new BulkCheckInItemResultDTO(i, "REJECTED", null, e.getMessage());
+            }
+        }
+
+        List<Long> ids = rows.isEmpty()
+            ? new ArrayList<>()
+            : transactionTemplate.execute(status -> attendanceJdbcRepository.batchInsert(rows));
+        for (int r = 0; r < rows.size(); r++) {
+            Long id = ids.get(r);
+            if (id == null) {
+                // Lost to a session opened since the check above
+                results[rowIndexes.get(r)] = new BulkCheckInItemResultDTO(rowIndexes.get(r), "REJECTED", null,
+                    "An open attendance session already exists for this user");
+                continue;
+            }
+            rows.get(r).setId(id);
+            submitPendingUpload(rows.get(r), PhotoSlot.CHECK_IN, checkInUploads.get(r));
+            submitPendingUpload(rows.get(r), PhotoSlot.CHECK_OUT, checkOutUploads.get(r));
+            results[rowIndexes.get(r)] = new BulkCheckInItemResultDTO(rowIndexes.get(r), "CREATED", id, null);
         }
+        return new BulkCheckInResponseDTO(Arrays.asList(results));
     }
 
     public AttendanceDTO checkOut(Long id, AttendanceDTO attendanceDTO) {
+        Attendance attendance = attendanceRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Check-out failed: Attendance record not found with ID: " + id));
+        return checkOut(attendance, attendanceDTO);
+    }
+
+    // Check out whatever session the user has open, no attendance id needed
+    public AttendanceDTO checkOutCurrent(Long userId, AttendanceDTO attendanceDTO) {
+        return checkOut(findOpenSession(userId), attendanceDTO);
+    }
+
+    private AttendanceDTO checkOut(Attendance attendance, AttendanceDTO attendanceDTO) {
         try {
-            Attendance attendance = attendanceRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Attendance record not found with ID: " + id));
-            
             attendance.setCheckOutTime(attendanceDTO.getCheckOutTime());
             attendance.setStatus(attendanceDTO.getStatus());
             
@@ -86,12 +262,14 @@ public class AttendanceService {
             if (attendanceDTO.getLongitude() != null) {
                 attendance.setLongitude(attendanceDTO.getLongitude());
             }
+            Callable<String> pendingUpload = null;
             if (attendanceDTO.getCheckOutPhoto() != null && !attendanceDTO.getCheckOutPhoto().isEmpty()) {
                 // Check if it's base64 data or already a MinIO URL
                 if (attendanceDTO.getCheckOutPhoto().startsWith("data:image/")) {
                     // Upload base64 image to MinIO
-                    String photoUrl = minIOService.uploadBase64Image(attendanceDTO.getCheckOutPhoto(), "check-out");
-                    attendance.setCheckOutPhotoUrl(photoUrl);
+                    String base64Photo = attendanceDTO.getCheckOutPhoto();
+                    pendingUpload = preparePhotoUpload(attendance, PhotoSlot.CHECK_OUT,
+                        () -> storageService.uploadBase64Image(base64Photo, "check-out"));
                 } else {
                     // Already a MinIO URL
                     attendance.setCheckOutPhotoUrl(attendanceDTO.getCheckOutPhoto());
@@ -99,9 +277,10 @@ public class AttendanceService {
             }
             
             Attendance updatedAttendance = attendanceRepository.save(attendance);
+            submitPendingUpload(updatedAttendance, PhotoSlot.CHECK_OUT, pendingUpload);
             return convertToDTO(updatedAttendance);
         } catch (Exception e) {
-            throw new RuntimeException("Check-out failed: " + e.getMessage());
+            throw new RuntimeException("Check-out failed: " + e.getMessage(), e);
         }
     }
 
@@ -119,6 +298,85 @@ public class AttendanceService {
             .collect(Collectors.toList());
     }
 
+    public List<AttendanceDTO> getAttendanceByDateRange(LocalDate from, LocalDate to) {
+        List<Attendance> attendances = attendanceRepository.findByDateRange(from, to);
+        return attendances.stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
+    public List<AttendanceDTO> getAttendanceByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to) {
+        List<Attendance> attendances = attendanceRepository.findByUserIdAndDateRange(userId, from, to);
+        return attendances.stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
+    public AttendancePageDTO getAttendancePage(String cursor, Integer size) {
+        int pageSize = normalizePageSize(size);
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Attendance> attendances;
+        if (cursor == null || cursor.isEmpty()) {
+            attendances = attendanceRepository.findFirstPage(limit);
+        } else {
+            AttendanceCursor after = AttendanceCursor.decode(cursor);
+            attendances = attendanceRepository.findPageAfter(after.getDate(), after.getCheckInTime(), after.getId(), limit);
+        }
+        return toPage(attendances, pageSize);
+    }
+
+    public AttendancePageDTO getAttendancePageByUserId(Long userId, String cursor, Integer size) {
+        int pageSize = normalizePageSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Attendance> attendances;
+        if (cursor == null || cursor.isEmpty()) {
+            attendances = attendanceRepository.findFirstPageByUserId(userId, limit);
+        } else {
+            AttendanceCursor after = AttendanceCursor.decode(cursor);
+            attendances = attendanceRepository.findPageAfterByUserId(userId, after.getDate(), after.getCheckInTime(), after.getId(), limit);
+        }
+        return toPage(attendances, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportAttendance(LocalDate from, LocalDate to, Long userId, String format, OutputStream outputStream) throws IOException {
+        LocalDate fromDate = from != null ? from : EXPORT_MIN_DATE;
+        LocalDate toDate = to != null ? to : EXPORT_MAX_DATE;
+        boolean csv = "csv".equalsIgnoreCase(format);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try (Stream<Attendance> rows = userId != null
+                ? attendanceRepository.streamByUserIdAndDateRange(userId, fromDate, toDate)
+                : attendanceRepository.streamByDateRange(fromDate, toDate)) {
+            if (csv) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            int written = 0;
+            Iterator<Attendance> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                AttendanceDTO dto = convertToDTO(iterator.next());
+                if (csv) {
+                    writeCsvRow(writer, dto);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+                // Detach exported rows so the persistence context does not grow with the export
+                if (++written % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    public AttendanceDTO getCurrentSession(Long userId) {
+        return convertToDTO(findOpenSession(userId));
+    }
+
     public AttendanceDTO getAttendanceById(Long id) {
         Attendance attendance = attendanceRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Attendance record not found with ID: " + id));
@@ -146,23 +404,34 @@ public class AttendanceService {
             }
             
             // Upload file to MinIO
+            Callable<String> pendingUpload = null;
             if (checkInPhoto != null && !checkInPhoto.isEmpty()) {
-                String photoUrl = minIOService.uploadFile(checkInPhoto, "check-in");
-                attendance.setCheckInPhotoUrl(photoUrl);
+                pendingUpload = preparePhotoUpload(attendance, PhotoSlot.CHECK_IN, fileUpload(checkInPhoto, "check-in"));
             }
             
-            Attendance savedAttendance = attendanceRepository.save(attendance);
+            Attendance savedAttendance = attendanceRepository.saveAndFlush(attendance);
+            submitPendingUpload(savedAttendance, PhotoSlot.CHECK_IN, pendingUpload);
             return convertToDTO(savedAttendance);
         } catch (Exception e) {
-            throw new RuntimeException("Error saving attendance record: " + e.getMessage());
+            if (isOpenSessionConflict(e)) {
+                throw new RuntimeException(OPEN_SESSION_EXISTS + attendanceDTO.getUserId());
+            }
+            throw new RuntimeException("Error saving attendance record: " + e.getMessage(), e);
         }
     }
 
     public AttendanceDTO checkOutWithFile(Long id, AttendanceDTO attendanceDTO, MultipartFile checkOutPhoto) {
+        Attendance attendance = attendanceRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Error updating attendance record: Attendance record not found with ID: " + id));
+        return checkOutWithFile(attendance, attendanceDTO, checkOutPhoto);
+    }
+
+    public AttendanceDTO checkOutCurrentWithFile(Long userId, AttendanceDTO attendanceDTO, MultipartFile checkOutPhoto) {
+        return checkOutWithFile(findOpenSession(userId), attendanceDTO, checkOutPhoto);
+    }
+
+    private AttendanceDTO checkOutWithFile(Attendance attendance, AttendanceDTO attendanceDTO, MultipartFile checkOutPhoto) {
         try {
-            Attendance attendance = attendanceRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Attendance record not found with ID: " + id));
-            
             attendance.setCheckOutTime(attendanceDTO.getCheckOutTime());
             attendance.setStatus(attendanceDTO.getStatus());
             
@@ -175,28 +444,203 @@ public class AttendanceService {
             }
             
             // Upload file to MinIO
+            Callable<String> pendingUpload = null;
             if (checkOutPhoto != null && !checkOutPhoto.isEmpty()) {
-                String photoUrl = minIOService.uploadFile(checkOutPhoto, "check-out");
-                attendance.setCheckOutPhotoUrl(photoUrl);
+                pendingUpload = preparePhotoUpload(attendance, PhotoSlot.CHECK_OUT, fileUpload(checkOutPhoto, "check-out"));
             }
             
             Attendance updatedAttendance = attendanceRepository.save(attendance);
+            submitPendingUpload(updatedAttendance, PhotoSlot.CHECK_OUT, pendingUpload);
             return convertToDTO(updatedAttendance);
         } catch (Exception e) {
-            throw new RuntimeException("Error updating attendance record: " + e.getMessage());
+            throw new RuntimeException("Error updating attendance record: " + e.getMessage(), e);
         }
     }
 
+    public List<AttendanceDTO> getPhotoUploads(Collection<PhotoUploadStatus> statuses) {
+        Collection<PhotoUploadStatus> filter = (statuses == null || statuses.isEmpty())
+            ? Arrays.asList(PhotoUploadStatus.PENDING, PhotoUploadStatus.FAILED)
+            : statuses;
+        return attendanceRepository.findByPhotoUploadStatusIn(filter).stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
     public String getPhotoUrl(String objectKey) {
-        return minIOService.getFileUrl(objectKey);
+        return photoUrlResolver.resolve(objectKey);
+    }
+
+    public Map<String, String> getPhotoUrls(PhotoUrlBatchRequest request) {
+        List<String> objectKeys = request.getObjectKeys() != null ? request.getObjectKeys() : new ArrayList<>();
+        List<Long> attendanceIds = request.getAttendanceIds() != null ? request.getAttendanceIds() : new ArrayList<>();
+        if (objectKeys.size() + attendanceIds.size() > MAX_PHOTO_URL_BATCH) {
+            throw new RuntimeException("Too many photos requested, limit is " + MAX_PHOTO_URL_BATCH);
+        }
+
+        List<String> photos = new ArrayList<>(objectKeys);
+        if (!attendanceIds.isEmpty()) {
+            for (Attendance attendance : attendanceRepository.findAllById(attendanceIds)) {
+                photos.add(attendance.getCheckInPhotoUrl());
+                photos.add(attendance.getCheckOutPhotoUrl());
+            }
+        }
+        return photoUrlResolver.resolveAll(photos);
+    }
+
+    // Fills in viewable photo URLs on already converted records, one parallel batch for the whole list
+    public <T extends Collection<AttendanceDTO>> T embedPhotoUrls(T records) {
+        List<String> photos = new ArrayList<>();
+        for (AttendanceDTO record : records) {
+            photos.add(record.getCheckInPhoto());
+            photos.add(record.getCheckOutPhoto());
+        }
+        Map<String, String> urls = photoUrlResolver.resolveAll(photos);
+        Map<String, String> thumbnailUrls = photoUrlResolver.resolveThumbnails(photos);
+        for (AttendanceDTO record : records) {
+            if (record.getCheckInPhoto() != null) {
+                record.setCheckInPhotoResolvedUrl(urls.get(record.getCheckInPhoto()));
+                record.setCheckInThumbnailUrl(thumbnailUrls.get(record.getCheckInPhoto()));
+            }
+            if (record.getCheckOutPhoto() != null) {
+                record.setCheckOutPhotoResolvedUrl(urls.get(record.getCheckOutPhoto()));
+                record.setCheckOutThumbnailUrl(thumbnailUrls.get(record.getCheckOutPhoto()));
+            }
+        }
+        return records;
     }
 
     public String testMinIO() {
-        return minIOService.testConnection();
+        return storageService.testConnection();
     }
 
     public String uploadTestPhoto() {
-        return minIOService.uploadTestFile();
+        return storageService.uploadTestFile();
+    }
+
+    // Uploads right away in synchronous mode; in async mode marks the photo PENDING and returns the upload to submit after save
+    private Callable<String> preparePhotoUpload(Attendance attendance, PhotoSlot slot, Callable<String> upload) throws Exception {
+        if (photoUploadService.isAsyncEnabled()) {
+            setPhoto(attendance, slot, null, PhotoUploadStatus.PENDING);
+            return upload;
+        }
+        String photoUrl = upload.call();
+        setPhoto(attendance, slot, photoUrl, PhotoUploadStatus.UPLOADED);
+        thumbnailService.submit(photoUrl);
+        return null;
+    }
+
+    // Applies a photo value from a request: base64 data is uploaded (now or later), anything else is stored as is
+    private Callable<String> preparePhoto(Attendance attendance, PhotoSlot slot, String photo, String folder) throws Exception {
+        if (photo == null || photo.isEmpty()) {
+            return null;
+        }
+        if (photo.startsWith("data:image/")) {
+            return preparePhotoUpload(attendance, slot, () -> storageService.uploadBase64Image(photo, folder));
+        }
+        setPhoto(attendance, slot, photo, null);
+        return null;
+    }
+
+    private Attendance findOpenSession(Long userId) {
+        return attendanceRepository.findOpenSessionByUserId(userId)
+            .orElseThrow(() -> new RuntimeException("No open attendance session for user ID: " + userId));
+    }
+
+    // The partial unique index rejected a second open session for the same user
+    private boolean isOpenSessionConflict(Exception e) {
+        if (!(e instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        String message = ((DataIntegrityViolationException) e).getMostSpecificCause().getMessage();
+        return message != null && message.contains(OPEN_SESSION_INDEX);
+    }
+
+    private String checkInKey(Long userId, LocalDateTime checkInTime) {
+        // The database keeps microseconds, so compare at that precision
+        return userId + "|" + checkInTime.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private void submitPendingUpload(Attendance attendance, PhotoSlot slot, Callable<String> pendingUpload) {
+        if (pendingUpload != null) {
+            photoUploadService.submit(attendance.getId(), slot, pendingUpload);
+        }
+    }
+
+    private void setPhoto(Attendance attendance, PhotoSlot slot, String photoUrl, PhotoUploadStatus status) {
+        if (slot == PhotoSlot.CHECK_IN) {
+            attendance.setCheckInPhotoUrl(photoUrl);
+            attendance.setCheckInPhotoStatus(status);
+        } else {
+            attendance.setCheckOutPhotoUrl(photoUrl);
+            attendance.setCheckOutPhotoStatus(status);
+        }
+    }
+
+    private Callable<String> fileUpload(MultipartFile file, String folder) throws IOException {
+        if (!photoUploadService.isAsyncEnabled()) {
+            return () -> storageService.uploadFile(file, folder);
+        }
+        // The multipart temp file is gone once the request ends, so keep the bytes for the background upload
+        byte[] bytes = file.getBytes();
+        String originalFilename = file.getOriginalFilename();
+        String contentType = file.getContentType();
+        return () -> storageService.uploadBytes(bytes, originalFilename, contentType, folder);
+    }
+
+    private void writeCsvRow(Writer writer, AttendanceDTO dto) throws IOException {
+        writer.write(csvValue(dto.getId()));
+        writer.write(',');
+        writer.write(csvValue(dto.getUserId()));
+        writer.write(',');
+        writer.write(csvValue(dto.getDate()));
+        writer.write(',');
+        writer.write(csvValue(dto.getCheckInTime()));
+        writer.write(',');
+        writer.write(csvValue(dto.getCheckOutTime()));
+        writer.write(',');
+        writer.write(csvValue(dto.getStatus()));
+        writer.write(',');
+        writer.write(csvValue(dto.getLatitude()));
+        writer.write(',');
+        writer.write(csvValue(dto.getLongitude()));
+        writer.write(',');
+        writer.write(csvValue(dto.getCheckInPhoto()));
+        writer.write(',');
+        writer.write(csvValue(dto.getCheckOutPhoto()));
+        writer.write('\n');
+    }
+
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private int normalizePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private AttendancePageDTO toPage(List<Attendance> attendances, int pageSize) {
+        boolean hasMore = attendances.size() > pageSize;
+        List<Attendance> pageRows = hasMore ? attendances.subList(0, pageSize) : attendances;
+        List<AttendanceDTO> records = pageRows.stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            Attendance last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new AttendanceCursor(last.getDate(), last.getCheckInTime(), last.getId()).encode();
+        }
+        return new AttendancePageDTO(records, nextCursor, hasMore, records.size());
     }
 
     private AttendanceDTO convertToDTO(Attendance attendance) {
@@ -211,6 +655,12 @@ public class AttendanceService {
         dto.setLongitude(attendance.getLongitude());
         dto.setCheckInPhoto(attendance.getCheckInPhotoUrl());
         dto.setCheckOutPhoto(attendance.getCheckOutPhotoUrl());
+        if (attendance.getCheckInPhotoStatus() != null) {
+            dto.setCheckInPhotoStatus(attendance.getCheckInPhotoStatus().name());
+        }
+        if (attendance.getCheckOutPhotoStatus() != null) {
+            dto.setCheckOutPhotoStatus(attendance.getCheckOutPhotoStatus().name());
+        }
         return dto;
     }
 }
\ No newline at end of file
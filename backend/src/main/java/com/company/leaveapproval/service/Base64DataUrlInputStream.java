@@ -0,0 +1,65 @@
+package com.company.leaveapproval.service;
+
+import java.io.InputStream;
+
+// Reads the base64 payload of a data URL ("data:image/jpeg;base64,....") as ASCII bytes without copying the string
+public class Base64DataUrlInputStream extends InputStream {
+
+    private final String dataUrl;
+    private final int end;
+    private int position;
+
+    public Base64DataUrlInputStream(String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Not a base64 data URL");
+        }
+        this.dataUrl = dataUrl;
+        this.position = comma + 1;
+        this.end = dataUrl.length();
+    }
+
+    // Number of bytes the payload decodes to, so uploads can be streamed with a known size
+    public long decodedLength() {
+        int last = end;
+        while (last > position && dataUrl.charAt(last - 1) == '=') {
+            last--;
+        }
+        return (long) (last - position) * 3 / 4;
+    }
+
+    @Override
+    public int read() {
+        if (position >= end) {
+            return -1;
+        }
+        return dataUrl.charAt(position++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+        int count = Math.min(length, end - position);
+        for (int i = 0; i < count; i++) {
+            buffer[offset + i] = (byte) dataUrl.charAt(position++);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += (int) skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return end - position;
+    }
+}
@@ -0,0 +1,72 @@
+package com.company.leaveapproval.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// Presigned-style URLs for backends without their own (local disk, memory), served by
+// GET /api/attendance/public/photos/{objectKey}?expires=...&signature=.... The key is its own setting, never the
+// JWT secret, so a leaked or rotated auth key does not affect photo links and the other way round
+@Component
+public class ContentUrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    @Value("${storage.url-signing-secret:}")
+    private String secret;
+
+    @Value("${storage.backend:minio}")
+    private String storageBackend;
+
+    @Value("${storage.content-base-url:/api/attendance/public/photos}")
+    private String baseUrl;
+
+    // Required by the local and memory backends, which hand out signed URLs; MinIO presigns its own
+    @PostConstruct
+    public void init() {
+        boolean configured = secret != null && secret.length() >= MIN_SECRET_LENGTH;
+        if (!configured && !"minio".equals(storageBackend)) {
+            throw new IllegalStateException("storage.url-signing-secret must be set to at least "
+                + MIN_SECRET_LENGTH + " characters for the " + storageBackend + " storage backend");
+        }
+        if (!configured) {
+            secret = null;
+        }
+    }
+
+    public String sign(String objectName, long expirySeconds) {
+        if (secret == null) {
+            throw new IllegalStateException("storage.url-signing-secret is not configured");
+        }
+        long expires = System.currentTimeMillis() / 1000 + expirySeconds;
+        return baseUrl + "/" + UriUtils.encodePath(objectName, StandardCharsets.UTF_8)
+            + "?expires=" + expires + "&signature=" + signature(objectName, expires);
+    }
+
+    public boolean verify(String objectName, long expires, String signature) {
+        if (secret == null || expires < System.currentTimeMillis() / 1000 || signature == null) {
+            return false;
+        }
+        byte[] expected = signature(objectName, expires).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String signature(String objectName, long expires) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            byte[] digest = mac.doFinal((objectName + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (Exception e) {
+            throw new RuntimeException("Error signing content URL: " + e.getMessage());
+        }
+    }
+}
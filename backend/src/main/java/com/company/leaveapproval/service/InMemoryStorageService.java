@@ -0,0 +1,185 @@
+package com.company.leaveapproval.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Heap-only photo storage for benchmarks and local runs; contents are lost on restart
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "memory")
+public class InMemoryStorageService implements StorageService {
+
+    private static final long URL_EXPIRY_SECONDS = 60 * 60 * 24; // same lifetime as MinIO presigned URLs
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ContentUrlSigner contentUrlSigner;
+
+    @Autowired
+    private StorageDedupMetrics dedupMetrics;
+
+    @Override
+    public String uploadFile(MultipartFile file, String folder) {
+        try {
+            return store(folder, StorageService.extension(file.getOriginalFilename()), file.getBytes(), file.getContentType());
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String uploadStream(InputStream stream, long size, String originalFilename, String contentType, String folder) {
+        try {
+            return store(folder, StorageService.extension(originalFilename), stream.readAllBytes(), contentType);
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String uploadBytes(byte[] data, String originalFilename, String contentType, String folder) {
+        return store(folder, StorageService.extension(originalFilename), data, contentType);
+    }
+
+    @Override
+    public String uploadBase64Image(String base64Data, String folder) {
+        try {
+            InputStream decoded = Base64.getDecoder().wrap(new Base64DataUrlInputStream(base64Data));
+            return store(folder, StorageService.IMAGE_EXTENSION, decoded.readAllBytes(), MediaType.IMAGE_JPEG_VALUE);
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading base64 image: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream getFile(String objectName) {
+        return new ByteArrayInputStream(get(objectName).data);
+    }
+
+    @Override
+    public StoredObjectInfo stat(String objectName) {
+        StoredObject object = get(objectName);
+        return new StoredObjectInfo(objectName, object.data.length, object.contentType, object.lastModified, object.etag);
+    }
+
+    @Override
+    public long writeTo(String objectName, long offset, long length, OutputStream out) throws IOException {
+        byte[] data = get(objectName).data;
+        int start = (int) Math.min(offset, data.length);
+        int count = (int) Math.min(length, data.length - start);
+        out.write(data, start, count);
+        return count;
+    }
+
+    @Override
+    public String getFileUrl(String objectName) {
+        return contentUrlSigner.sign(objectName, URL_EXPIRY_SECONDS);
+    }
+
+    @Override
+    public void deleteFile(String objectName) {
+        objects.remove(objectName);
+    }
+
+    @Override
+    public void deleteFiles(Collection<String> objectNames) {
+        objectNames.forEach(objects::remove);
+    }
+
+    @Override
+    public void listObjects(String prefix, Consumer<StoredObjectInfo> consumer) {
+        for (Map.Entry<String, StoredObject> entry : objects.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                StoredObject object = entry.getValue();
+                consumer.accept(new StoredObjectInfo(entry.getKey(), object.data.length, object.contentType,
+                    object.lastModified, object.etag));
+            }
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public void initialize() {
+    }
+
+    @Override
+    public String testConnection() {
+        return "In-memory storage is working correctly. Objects: " + objects.size();
+    }
+
+    @Override
+    public String uploadTestFile() {
+        String objectName = "test/test-file.txt";
+        putBytes(objectName, "This is a test file for storage connection.".getBytes(StandardCharsets.UTF_8), MediaType.TEXT_PLAIN_VALUE);
+        return "Test file uploaded successfully: " + objectName;
+    }
+
+    // Same content-addressed keys as the other backends; an existing object keeps its bytes but gets a fresh
+    // timestamp, which the reconciler's grace period is measured from
+    private String store(String folder, String extension, byte[] data, String contentType) {
+        String objectName = StorageService.contentKey(folder, StorageService.sha256().digest(data), extension);
+        String type = contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        boolean[] reused = new boolean[1];
+        objects.compute(objectName, (key, existing) -> {
+            reused[0] = existing != null;
+            return existing != null
+                ? new StoredObject(existing.data, existing.contentType, Instant.now())
+                : new StoredObject(data, type, Instant.now());
+        });
+        if (reused[0]) {
+            dedupMetrics.hit(data.length);
+        } else {
+            dedupMetrics.miss();
+        }
+        return objectName;
+    }
+
+    @Override
+    public void putBytes(String objectName, byte[] data, String contentType) {
+        String type = contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        objects.put(objectName, new StoredObject(data, type, Instant.now()));
+    }
+
+    private StoredObject get(String objectName) {
+        StoredObject object = objects.get(objectName);
+        if (object == null) {
+            throw new RuntimeException("Error getting file: object not found " + objectName);
+        }
+        return object;
+    }
+
+    private static class StoredObject {
+        private final byte[] data;
+        private final String contentType;
+        private final Instant lastModified;
+        private final String etag;
+
+        StoredObject(byte[] data, String contentType, Instant lastModified) {
+            this.data = data;
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+            this.etag = Integer.toHexString(data.length) + "-" + Integer.toHexString(Arrays.hashCode(data)) + "-"
+                + Long.toHexString(lastModified.toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.dto.LeaveRequestDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Server-Sent Events feed of leave request changes. Admins receive every event, employees only those about their
+// own requests. Publishing only enqueues: each subscriber has a bounded buffer drained by a sender pool, so a slow
+// client never blocks a request thread. A subscriber whose buffer overflows loses the buffered events and gets a
+// single "resync" event telling it to reload over REST. A write to a client that stops reading blocks its sender
+// thread until the container's write timeout; a subscriber stuck in one send for longer than send-timeout-ms is
+// dropped so it takes no further thread, and other subscribers' drains wait for the next free one.
+@Service
+public class LeaveEventService {
+
+    public static final String LEAVE_CREATED = "leave-created";
+    public static final String LEAVE_APPROVED = "leave-approved";
+    public static final String LEAVE_REJECTED = "leave-rejected";
+    public static final String LEAVE_DELETED = "leave-deleted";
+    public static final String LEAVE_UPDATED = "leave-updated";
+    private static final String RESYNC = "resync";
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveEventService.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${leave.events.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${leave.events.buffer-size:100}")
+    private int bufferSize;
+
+    // Clients reconnect (EventSource does so on its own) when the stream times out
+    @Value("${leave.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    // Started on demand and stopped when idle, so this only bounds how many sends can block at once
+    @Value("${leave.events.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${leave.events.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final AtomicLong eventIds = new AtomicLong();
+    private ExecutorService sender;
+    private Counter overflowCounter;
+    private Counter slowCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // At most one drain per subscriber is queued, so the queue is bounded by max-subscribers
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "leave-events-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        sender = pool;
+        Gauge.builder("leave.events.subscribers", subscribers, Map::size).register(meterRegistry);
+        overflowCounter = meterRegistry.counter("leave.events.overflows");
+        slowCounter = meterRegistry.counter("leave.events.slow.dropped");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe(Long userId, boolean admin) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(subscriberIds.incrementAndGet(), userId, admin, emitter,
+            new ArrayBlockingQueue<>(bufferSize));
+        subscribers.put(subscriber.id, subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber.id));
+        emitter.onTimeout(() -> subscribers.remove(subscriber.id));
+        emitter.onError(e -> subscribers.remove(subscriber.id));
+        // Sent right away so proxies and the client see the stream open
+        enqueue(subscriber, Event.comment("connected"));
+        return emitter;
+    }
+
+    // Call after the change is committed; ownerId is the employee the request belongs to
+    public void publish(String type, LeaveRequestDto request, Long ownerId) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Event event = new Event(Long.toString(eventIds.incrementAndGet()), type, request, null);
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.admin || subscriber.userId.equals(ownerId)) {
+                enqueue(subscriber, event);
+            }
+        }
+    }
+
+    // Keeps idle connections from being closed by proxies, detects clients that went away and drops those that
+    // stopped reading
+    @Scheduled(fixedRateString = "${leave.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers.values()) {
+            long sendStarted = subscriber.sendStarted;
+            if (sendStarted != 0 && now - sendStarted > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)) {
+                drop(subscriber);
+                continue;
+            }
+            // A full buffer is already waiting to be sent, no heartbeat needed
+            if (subscriber.queue.offer(Event.comment("heartbeat"))) {
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    // The emitter's methods lock it for the whole blocked write, so the sender thread completes it once the
+    // write returns rather than this one waiting for it
+    private void drop(Subscriber subscriber) {
+        if (subscriber.dropped.compareAndSet(false, true)) {
+            slowCounter.increment();
+            logger.debug("Leave event subscriber {} stopped reading, dropped", subscriber.id);
+            subscribers.remove(subscriber.id);
+            subscriber.queue.clear();
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Event event) {
+        if (!subscriber.queue.offer(event)) {
+            overflowCounter.increment();
+            subscriber.queue.clear();
+            subscriber.queue.offer(new Event(null, RESYNC, "buffer overflow", null));
+        }
+        scheduleDrain(subscriber);
+    }
+
+    // At most one drain per subscriber at a time keeps its events in order
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Event event;
+            while (!subscriber.dropped.get() && (event = subscriber.queue.poll()) != null) {
+                subscriber.sendStarted = System.nanoTime();
+                subscriber.emitter.send(event.toSse());
+                subscriber.sendStarted = 0;
+            }
+            if (subscriber.dropped.get()) {
+                subscriber.emitter.completeWithError(new IOException("Send timed out"));
+                return;
+            }
+        } catch (Exception e) {
+            logger.debug("Leave event subscriber {} disconnected: {}", subscriber.id, e.getMessage());
+            subscribers.remove(subscriber.id);
+            subscriber.queue.clear();
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.sendStarted = 0;
+            subscriber.draining.set(false);
+        }
+        // An event enqueued between the last poll and releasing the flag would otherwise wait for the next one
+        if (!subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private static class Subscriber {
+        private final long id;
+        private final Long userId;
+        private final boolean admin;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean dropped = new AtomicBoolean();
+        // System.nanoTime() when the send in progress began, 0 between sends
+        private volatile long sendStarted;
+
+        private Subscriber(long id, Long userId, boolean admin, SseEmitter emitter, BlockingQueue<Event> queue) {
+            this.id = id;
+            this.userId = userId;
+            this.admin = admin;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+
+    // Immutable event shared by all recipients; an SseEventBuilder is built per send because building mutates it
+    private static class Event {
+        private final String id;
+        private final String name;
+        private final Object data;
+        private final String comment;
+
+        private Event(String id, String name, Object data, String comment) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+            this.comment = comment;
+        }
+
+        private static Event comment(String comment) {
+            return new Event(null, null, null, comment);
+        }
+
+        private SseEmitter.SseEventBuilder toSse() {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (comment != null) {
+                return builder.comment(comment);
+            }
+            if (id != null) {
+                builder.id(id);
+            }
+            return builder.name(name).data(data, data instanceof String ? MediaType.TEXT_PLAIN : MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.dto.LeaveSearchCriteria;
+import com.company.leaveapproval.repository.LeaveRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Match counts of the admin leave search, kept per filter combination for a short time to live so paging
+// through a multi-year table does not re-count it for every page. Leave writes drop every entry.
+@Service
+public class LeaveSearchCountCache {
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Value("${leave.search.count-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${leave.search.count-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<LeaveSearchCriteria, CachedCount> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LeaveSearchCriteria, CachedCount> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public long count(LeaveSearchCriteria criteria) {
+        synchronized (this) {
+            CachedCount cached = entries.get(criteria);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                return cached.count;
+            }
+        }
+        // Counted outside the lock; concurrent misses for the same filter may both count
+        long count = leaveRequestRepository.countMatching(criteria);
+        synchronized (this) {
+            entries.put(criteria, new CachedCount(count, System.currentTimeMillis() + ttlSeconds * 1000));
+        }
+        return count;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long expiresAt;
+
+        private CachedCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.company.leaveapproval.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Single-node photo storage on local disk; object keys map to paths under storage.local.root
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageService implements StorageService {
+
+    private static final long URL_EXPIRY_SECONDS = 60 * 60 * 24; // same lifetime as MinIO presigned URLs
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    // Staging directory for uploads until their content hash is known
+    private static final String INCOMING_FOLDER = "incoming";
+
+    @Autowired
+    private ContentUrlSigner contentUrlSigner;
+
+    @Autowired
+    private StorageDedupMetrics dedupMetrics;
+
+    @Value("${storage.local.root:./data/photos}")
+    private String rootDirectory;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(rootDirectory).toAbsolutePath().normalize();
+        initialize();
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file, String folder) {
+        try {
+            try (InputStream stream = file.getInputStream()) {
+                return store(folder, StorageService.extension(file.getOriginalFilename()), stream, file.getSize());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String uploadStream(InputStream stream, long size, String originalFilename, String contentType, String folder) {
+        try {
+            return store(folder, StorageService.extension(originalFilename), stream, size);
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String uploadBytes(byte[] data, String originalFilename, String contentType, String folder) {
+        try {
+            return store(folder, StorageService.extension(originalFilename), new ByteArrayInputStream(data), data.length);
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void putBytes(String objectName, byte[] data, String contentType) {
+        try {
+            Path target = resolve(objectName);
+            Path temp = receive(new ByteArrayInputStream(data), data.length);
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String uploadBase64Image(String base64Data, String folder) {
+        try {
+            Base64DataUrlInputStream payload = new Base64DataUrlInputStream(base64Data);
+            long size = payload.decodedLength();
+            return store(folder, StorageService.IMAGE_EXTENSION, Base64.getDecoder().wrap(payload), size);
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading base64 image: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream getFile(String objectName) {
+        try {
+            return Files.newInputStream(resolve(objectName));
+        } catch (Exception e) {
+            throw new RuntimeException("Error getting file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public StoredObjectInfo stat(String objectName) {
+        try {
+            Path path = resolve(objectName);
+            String contentType = MediaTypeFactory.getMediaType(objectName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+            long size = Files.size(path);
+            long modifiedMillis = Files.getLastModifiedTime(path).toMillis();
+            // Objects are replaced atomically, so size and mtime identify the content
+            String etag = Long.toHexString(size) + "-" + Long.toHexString(modifiedMillis);
+            return new StoredObjectInfo(objectName, size, contentType, Instant.ofEpochMilli(modifiedMillis), etag);
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading file metadata: " + e.getMessage());
+        }
+    }
+
+    // Serves the file through read-only memory-mapped windows, so bytes go from the page cache
+    // to the response without read() copies into an intermediate buffer
+    @Override
+    public long writeTo(String objectName, long offset, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(objectName), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long end = Math.min(channel.size(), offset + length);
+            long position = offset;
+            while (position < end) {
+                long windowLength = Math.min(MAP_WINDOW, end - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+                while (window.hasRemaining()) {
+                    target.write(window);
+                }
+                position += windowLength;
+            }
+            return position - offset;
+        }
+    }
+
+    @Override
+    public String getFileUrl(String objectName) {
+        return contentUrlSigner.sign(objectName, URL_EXPIRY_SECONDS);
+    }
+
+    @Override
+    public void deleteFile(String objectName) {
+        try {
+            Files.deleteIfExists(resolve(objectName));
+        } catch (Exception e) {
+            throw new RuntimeException("Error deleting file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteFiles(Collection<String> objectNames) {
+        objectNames.forEach(this::deleteFile);
+    }
+
+    // Files.walk visits the tree lazily, so memory stays flat however many photos are stored
+    @Override
+    public void listObjects(String prefix, Consumer<StoredObjectInfo> consumer) {
+        Path start = root.resolve(prefix).normalize();
+        if (!start.startsWith(root) || !Files.isDirectory(start)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(start)) {
+            paths.forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        String objectName = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+                        consumer.accept(new StoredObjectInfo(objectName, attributes.size(), null,
+                            Instant.ofEpochMilli(modifiedMillis),
+                            Long.toHexString(attributes.size()) + "-" + Long.toHexString(modifiedMillis)));
+                    }
+                } catch (IOException e) {
+                    // Removed while the walk was running
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Error listing files: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return Files.isDirectory(root) && Files.isWritable(root);
+    }
+
+    @Override
+    public void initialize() {
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Error initializing storage directory: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String testConnection() {
+        return isReady()
+            ? "Local storage is working correctly. Root: " + root
+            : "Local storage is not writable: " + root;
+    }
+
+    @Override
+    public String uploadTestFile() {
+        try {
+            String objectName = "test/test-file.txt";
+            putBytes(objectName, "This is a test file for storage connection.".getBytes(StandardCharsets.UTF_8),
+                MediaType.TEXT_PLAIN_VALUE);
+            return "Test file uploaded successfully: " + objectName;
+        } catch (Exception e) {
+            return "Error uploading test file: " + e.getMessage();
+        }
+    }
+
+    // Single pass: the upload is hashed while FileChannel.transferFrom writes it to a temp file, which is then
+    // moved atomically to its content key, or dropped when that object already exists
+    private String store(String folder, String extension, InputStream stream, long size) throws IOException {
+        MessageDigest digest = StorageService.sha256();
+        Path temp = receive(new DigestInputStream(stream, digest), size);
+        try {
+            String objectName = StorageService.contentKey(folder, digest.digest(), extension);
+            Path target = resolve(objectName);
+            if (Files.exists(target)) {
+                try {
+                    // The reconciler judges age by mtime: a reused object must look new until its row is committed
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    dedupMetrics.hit(Files.size(temp));
+                    return objectName;
+                } catch (NoSuchFileException e) {
+                    // Removed in the meantime, store this copy instead
+                }
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            dedupMetrics.miss();
+            return objectName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Writes the stream to a temp file under the root, readers never see a partly written object
+    private Path receive(InputStream stream, long size) throws IOException {
+        Path incoming = root.resolve(INCOMING_FOLDER);
+        Files.createDirectories(incoming);
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(stream)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+            if (size >= 0 && position != size) {
+                throw new IOException("Expected " + size + " bytes but received " + position);
+            }
+            return temp;
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // Object keys are relative paths; anything escaping the root is rejected
+    private Path resolve(String objectName) {
+        if (objectName == null || objectName.isEmpty()) {
+            throw new RuntimeException("Object key is required");
+        }
+        Path path = root.resolve(objectName).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new RuntimeException("Invalid object key: " + objectName);
+        }
+        return path;
+    }
+}
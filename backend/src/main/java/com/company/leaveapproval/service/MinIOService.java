@@ -3,112 +3,492 @@ package com.company.leaveapproval.service;
 import io.minio.*;
 import io.minio.errors.*;
 import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
-public class MinIOService {
+@ConditionalOnProperty(name = "storage.backend", havingValue = "minio", matchIfMissing = true)
+public class MinIOService implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinIOService.class);
+    private static final int PRESIGNED_URL_EXPIRY_SECONDS = 60 * 60 * 24; // 24 hours
+    private static final String NO_SUCH_BUCKET = "NoSuchBucket";
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+    // Staging area for single-pass uploads until their content hash is known
+    private static final String INCOMING_FOLDER = "incoming";
+    // Streams of unknown length go up as a multipart upload, one part buffered at a time (S3 minimum is 5 MiB)
+    private static final long STREAM_PART_SIZE = 5L * 1024 * 1024;
+    // S3 error codes worth another attempt; anything else (NoSuchKey, AccessDenied, ...) is a definite answer
+    private static final Set<String> RETRYABLE_ERROR_CODES = Set.of(
+        "InternalError", "SlowDown", "ServiceUnavailable", "RequestTimeout", "XMinioServerNotInitialized");
 
     @Autowired
     private MinioClient minioClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StorageDedupMetrics dedupMetrics;
+
     @Value("${minio.bucket-name}")
     private String bucketName;
 
-    public void initializeBucket() {
+    @Value("${minio.url-cache.max-entries:10000}")
+    private int urlCacheMaxEntries;
+
+    @Value("${minio.url-cache.ttl-seconds:3600}")
+    private long urlCacheTtlSeconds;
+
+    @Value("${minio.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${minio.retry.base-backoff-ms:100}")
+    private long retryBaseBackoffMs;
+
+    @Value("${minio.retry.max-backoff-ms:2000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${minio.circuit-breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${minio.circuit-breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    // Known-size objects at least this large are sent as parallel parts and composed server-side
+    @Value("${minio.parallel-upload.threshold-bytes:67108864}")
+    private long parallelThresholdBytes;
+
+    @Value("${minio.parallel-upload.part-size-bytes:16777216}")
+    private long parallelPartSizeBytes;
+
+    @Value("${minio.parallel-upload.threads:4}")
+    private int parallelThreads;
+
+    // Set once the bucket is known to exist; uploads skip the bucketExists round trip while it holds
+    private volatile boolean bucketReady;
+
+    private PresignedUrlCache urlCache;
+    private Counter urlCacheHits;
+    private Counter urlCacheMisses;
+
+    private CircuitBreaker circuitBreaker;
+    private Counter retryCounter;
+    private Counter rejectedCounter;
+    private ExecutorService partExecutor;
+
+    @PostConstruct
+    public void initResilience() {
+        // Every composed part but the last must meet the S3 multipart minimum
+        parallelPartSizeBytes = Math.max(parallelPartSizeBytes, STREAM_PART_SIZE);
+        circuitBreaker = new CircuitBreaker("minio", breakerFailureThreshold, breakerOpenMs);
+        Gauge.builder("minio.circuit.breaker.state", circuitBreaker, breaker -> breaker.getState().getLevel())
+            .description("0 closed, 1 half-open, 2 open")
+            .register(meterRegistry);
+        retryCounter = meterRegistry.counter("minio.requests.retries");
+        rejectedCounter = meterRegistry.counter("minio.requests.rejected");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        partExecutor = Executors.newFixedThreadPool(parallelThreads, runnable -> {
+            Thread thread = new Thread(runnable, "minio-part-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partExecutor.shutdownNow();
+    }
+
+    @PostConstruct
+    public void initUrlCache() {
+        // Cached URLs must expire well before the presigned URL itself does
+        long ttlSeconds = Math.min(urlCacheTtlSeconds, PRESIGNED_URL_EXPIRY_SECONDS / 2);
+        urlCache = new PresignedUrlCache(urlCacheMaxEntries, ttlSeconds * 1000);
+        urlCacheHits = meterRegistry.counter("minio.url.cache.requests", "result", "hit");
+        urlCacheMisses = meterRegistry.counter("minio.url.cache.requests", "result", "miss");
+        Gauge.builder("minio.url.cache.size", urlCache, PresignedUrlCache::size).register(meterRegistry);
+    }
+
+    // Provision the bucket once at startup instead of before every upload
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionBucketOnStartup() {
+        try {
+            initializeBucket();
+            logger.info("MinIO bucket {} is ready", bucketName);
+        } catch (Exception e) {
+            // Not fatal: the first upload or readiness probe provisions it
+            logger.warn("MinIO bucket {} could not be provisioned at startup: {}", bucketName, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return bucketReady;
+    }
+
+    @Override
+    public void initialize() {
+        initializeBucket();
+    }
+
+    // Checks with MinIO and creates the bucket if needed, regardless of the cached state
+    public synchronized void initializeBucket() {
         try {
-            boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+            boolean bucketExists = execute("bucket_exists", true,
+                () -> minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build()));
             if (!bucketExists) {
-                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+                execute("make_bucket", true, () -> {
+                    minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+                    return null;
+                });
             }
+            bucketReady = true;
         } catch (Exception e) {
-            throw new RuntimeException("Error initializing bucket: " + e.getMessage());
+            bucketReady = false;
+            throw storageFailure("Error initializing bucket: ", e);
         }
     }
 
+    private void ensureBucket() {
+        if (!bucketReady) {
+            initializeBucket();
+        }
+    }
+
+    @Override
     public String uploadFile(MultipartFile file, String folder) {
         try {
-            initializeBucket();
+            if (file.getSize() >= parallelThresholdBytes) {
+                return uploadSpooled(file, folder);
+            }
+            // The part is already on hand, so hash it first and only send it when the content is new
+            byte[] hash;
+            try (InputStream stream = file.getInputStream()) {
+                hash = StorageService.sha256(stream);
+            }
+            String objectName = StorageService.contentKey(folder, hash, StorageService.extension(file.getOriginalFilename()));
             
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            String objectName = folder + "/" + fileName;
+            putIfAbsent(objectName, file::getInputStream, file.getSize(), file.getContentType());
             
-            minioClient.putObject(
-                PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName)
-                    .stream(file.getInputStream(), file.getSize(), -1)
-                    .contentType(file.getContentType())
-                    .build()
-            );
+            return objectName;
+        } catch (Exception e) {
+            throw storageFailure("Error uploading file: ", e);
+        }
+    }
+
+    // A part large enough for a parallel upload is moved to a file of its own (a rename when the container has
+    // already spooled it to disk), so every upload part can be read from its own position in that file
+    private String uploadSpooled(MultipartFile file, String folder) throws Exception {
+        Path spooled = Files.createTempFile("minio-upload-", ".part");
+        try {
+            file.transferTo(spooled.toFile());
+            byte[] hash;
+            try (InputStream stream = Files.newInputStream(spooled)) {
+                hash = StorageService.sha256(stream);
+            }
+            String objectName = StorageService.contentKey(folder, hash, StorageService.extension(file.getOriginalFilename()));
+            putIfAbsent(objectName, fileContent(spooled), file.getSize(), file.getContentType());
+            return objectName;
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    @Override
+    public String uploadStream(InputStream stream, long size, String originalFilename, String contentType, String folder) {
+        try {
+            // A single-pass stream is hashed while it uploads to a staging key, then copied server-side to its
+            // content key unless that object already exists. size may be -1 when the length is not known up front
+            String incomingName = INCOMING_FOLDER + "/" + UUID.randomUUID();
+            DigestInputStream digestStream = new DigestInputStream(stream, StorageService.sha256());
+            putObject(incomingName, () -> digestStream, size, contentType, false);
+            
+            String objectName = StorageService.contentKey(folder, digestStream.getMessageDigest().digest(),
+                StorageService.extension(originalFilename));
+            try {
+                StatObjectResponse existing = statIfExists(objectName);
+                if (existing != null && touch(objectName, existing)) {
+                    dedupMetrics.hit(existing.size());
+                } else {
+                    execute("copy_object", true, () -> minioClient.copyObject(
+                        CopyObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .source(CopySource.builder().bucket(bucketName).object(incomingName).build())
+                            .build()
+                    ));
+                    dedupMetrics.miss();
+                }
+            } finally {
+                removeQuietly(incomingName);
+            }
             
             return objectName;
         } catch (Exception e) {
-            throw new RuntimeException("Error uploading file: " + e.getMessage());
+            throw storageFailure("Error uploading file: ", e);
         }
     }
 
-    public String uploadBase64Image(String base64Data, String folder) {
+    @Override
+    public String uploadBytes(byte[] data, String originalFilename, String contentType, String folder) {
         try {
-            initializeBucket();
+            byte[] hash = StorageService.sha256().digest(data);
+            String objectName = StorageService.contentKey(folder, hash, StorageService.extension(originalFilename));
             
-            String fileName = UUID.randomUUID().toString() + ".jpg";
-            String objectName = folder + "/" + fileName;
+            putIfAbsent(objectName, bytesContent(data), data.length, contentType);
             
-            // Convert base64 to byte array
-            byte[] imageBytes = java.util.Base64.getDecoder().decode(base64Data.split(",")[1]);
+            return objectName;
+        } catch (Exception e) {
+            throw storageFailure("Error uploading file: ", e);
+        }
+    }
+
+    @Override
+    public void putBytes(String objectName, byte[] data, String contentType) {
+        try {
+            putObject(objectName, bytesContent(data), data.length, contentType, true);
+        } catch (Exception e) {
+            throw storageFailure("Error uploading file: ", e);
+        }
+    }
+
+    @Override
+    public String uploadBase64Image(String base64Data, String folder) {
+        try {
+            // Decode straight from the request string, once to hash and once more only if the upload is needed
+            byte[] hash = StorageService.sha256(java.util.Base64.getDecoder().wrap(new Base64DataUrlInputStream(base64Data)));
+            String objectName = StorageService.contentKey(folder, hash, StorageService.IMAGE_EXTENSION);
+            long size = new Base64DataUrlInputStream(base64Data).decodedLength();
             
-            minioClient.putObject(
-                PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName)
-                    .stream(new java.io.ByteArrayInputStream(imageBytes), imageBytes.length, -1)
-                    .contentType("image/jpeg")
-                    .build()
-            );
+            putIfAbsent(objectName,
+                () -> java.util.Base64.getDecoder().wrap(new Base64DataUrlInputStream(base64Data)),
+                size, "image/jpeg");
             
             return objectName;
         } catch (Exception e) {
-            throw new RuntimeException("Error uploading base64 image: " + e.getMessage());
+            throw storageFailure("Error uploading base64 image: ", e);
         }
     }
 
+    @Override
     public String getFileUrl(String objectName) {
+        String cachedUrl = urlCache.get(objectName);
+        if (cachedUrl != null) {
+            urlCacheHits.increment();
+            return cachedUrl;
+        }
+        urlCacheMisses.increment();
         try {
-            return minioClient.getPresignedObjectUrl(
+            String url = minioClient.getPresignedObjectUrl(
                 GetPresignedObjectUrlArgs.builder()
                     .method(Method.GET)
                     .bucket(bucketName)
                     .object(objectName)
-                    .expiry(60 * 60 * 24) // 24 hours
+                    .expiry(PRESIGNED_URL_EXPIRY_SECONDS)
                     .build()
             );
+            urlCache.put(objectName, url);
+            return url;
+        } catch (Exception e) {
+            throw storageFailure("Error getting file URL: ", e);
+        }
+    }
+
+    @Override
+    public void deleteFile(String objectName) {
+        try {
+            execute("remove_object", true, () -> {
+                minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .build()
+                );
+                return null;
+            });
         } catch (Exception e) {
-            throw new RuntimeException("Error getting file URL: " + e.getMessage());
+            markBucketMissing(e);
+            throw storageFailure("Error deleting file: ", e);
+        } finally {
+            urlCache.invalidate(objectName);
         }
     }
 
+    // One DeleteObjects request per 1000 keys instead of a request per object
+    @Override
+    public void deleteFiles(Collection<String> objectNames) {
+        if (objectNames.isEmpty()) {
+            return;
+        }
+        List<DeleteObject> objects = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            objects.add(new DeleteObject(objectName));
+        }
+        try {
+            List<String> failed = execute("remove_objects", true, () -> {
+                // The result iterable is lazy, the requests are only sent while it is consumed
+                List<String> errors = new ArrayList<>();
+                for (Result<DeleteError> result : minioClient.removeObjects(
+                        RemoveObjectsArgs.builder().bucket(bucketName).objects(objects).build())) {
+                    DeleteError error = result.get();
+                    errors.add(error.objectName() + " (" + error.code() + ")");
+                }
+                return errors;
+            });
+            if (!failed.isEmpty()) {
+                throw new RuntimeException(failed.size() + " objects not removed, first: " + failed.get(0));
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            markBucketMissing(e);
+            throw storageFailure("Error deleting files: ", e);
+        } finally {
+            objectNames.forEach(urlCache::invalidate);
+        }
+    }
+
+    // ListObjectsV2 pages of up to 1000 keys are fetched as the iterable is consumed. Not retried: objects
+    // already handed to the consumer would be visited twice
+    @Override
+    public void listObjects(String prefix, Consumer<StoredObjectInfo> consumer) {
+        try {
+            execute("list_objects", false, () -> {
+                Iterable<Result<Item>> results = minioClient.listObjects(
+                    ListObjectsArgs.builder()
+                        .bucket(bucketName)
+                        .prefix(prefix)
+                        .recursive(true)
+                        .maxKeys(1000)
+                        .build()
+                );
+                for (Result<Item> result : results) {
+                    Item item = result.get();
+                    if (item.isDir()) {
+                        continue;
+                    }
+                    Instant lastModified = item.lastModified() != null ? item.lastModified().toInstant() : null;
+                    consumer.accept(new StoredObjectInfo(item.objectName(), item.size(), null, lastModified, stripQuotes(item.etag())));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            markBucketMissing(e);
+            throw storageFailure("Error listing files: ", e);
+        }
+    }
+
+    @Override
     public InputStream getFile(String objectName) {
         try {
-            return minioClient.getObject(
+            return execute("get_object", true, () -> minioClient.getObject(
                 GetObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
                     .build()
-            );
+            ));
+        } catch (Exception e) {
+            markBucketMissing(e);
+            throw storageFailure("Error getting file: ", e);
+        }
+    }
+
+    @Override
+    public StoredObjectInfo stat(String objectName) {
+        try {
+            StatObjectResponse stat = execute("stat_object", true, () -> minioClient.statObject(
+                StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .build()
+            ));
+            Instant lastModified = stat.lastModified() != null ? stat.lastModified().toInstant() : null;
+            return new StoredObjectInfo(objectName, stat.size(), stat.contentType(), lastModified, stripQuotes(stat.etag()));
+        } catch (Exception e) {
+            markBucketMissing(e);
+            throw storageFailure("Error reading file metadata: ", e);
+        }
+    }
+
+    @Override
+    public long writeTo(String objectName, long offset, long length, OutputStream out) throws IOException {
+        if (length <= 0) {
+            return 0;
+        }
+        InputStream stream;
+        try {
+            // Ranged GET, MinIO only sends the requested bytes
+            stream = execute("get_object", true, () -> minioClient.getObject(
+                GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .offset(offset)
+                    .length(length)
+                    .build()
+            ));
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Error getting file: " + e.getMessage());
+            markBucketMissing(e);
+            throw new IOException("Error getting file: " + e.getMessage(), e);
+        }
+        try (InputStream body = stream) {
+            return body.transferTo(out);
+        }
+    }
+
+    private String stripQuotes(String etag) {
+        if (etag != null && etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            return etag.substring(1, etag.length() - 1);
         }
+        return etag;
     }
 
+    @Override
     public String testConnection() {
         try {
             initializeBucket();
@@ -118,25 +498,339 @@ public class MinIOService {
         }
     }
 
+    @Override
     public String uploadTestFile() {
         try {
-            initializeBucket();
-            
             String testContent = "This is a test file for MinIO connection.";
             String objectName = "test/test-file.txt";
             
-            minioClient.putObject(
-                PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName)
-                    .stream(new java.io.ByteArrayInputStream(testContent.getBytes()), testContent.length(), -1)
-                    .contentType("text/plain")
-                    .build()
-            );
+            putObject(objectName, () -> new java.io.ByteArrayInputStream(testContent.getBytes()),
+                testContent.length(), "text/plain", true);
             
             return "Test file uploaded successfully: " + objectName;
         } catch (Exception e) {
             return "Error uploading test file: " + e.getMessage();
         }
     }
-}
\ No newline at end of file
+
+    // Content-addressed objects never change, so an existing one is reused instead of uploaded again
+    private void putIfAbsent(String objectName, ObjectContent content, long size, String contentType) throws Exception {
+        ensureBucket();
+        StatObjectResponse existing = statIfExists(objectName);
+        if (existing != null && touch(objectName, existing)) {
+            dedupMetrics.hit(existing.size());
+            return;
+        }
+        putObject(objectName, content, size, contentType, true);
+        dedupMetrics.miss();
+    }
+
+    // A reused object may be older than the reconciler's grace period while the row that will reference it is
+    // not committed yet, so its last-modified time is reset by copying it onto itself with replaced metadata.
+    // False when the object has been removed in the meantime and has to be stored again
+    private boolean touch(String objectName, StatObjectResponse existing) throws Exception {
+        String contentType = existing.contentType() != null ? existing.contentType() : "application/octet-stream";
+        try {
+            execute("copy_object", true, () -> minioClient.copyObject(
+                CopyObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .source(CopySource.builder().bucket(bucketName).object(objectName).build())
+                    .metadataDirective(Directive.REPLACE)
+                    .headers(java.util.Map.of("Content-Type", contentType))
+                    .build()
+            ));
+            return true;
+        } catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        } finally {
+            urlCache.invalidate(objectName);
+        }
+    }
+
+    private void removeQuietly(String objectName) {
+        try {
+            deleteFile(objectName);
+        } catch (Exception e) {
+            logger.warn("Could not remove staged upload {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    private StatObjectResponse statIfExists(String objectName) throws Exception {
+        try {
+            return execute("stat_object", true, () -> minioClient.statObject(
+                StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .build()
+            ));
+        } catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code()) || markBucketMissing(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    // Upload against a bucket assumed to exist; on NoSuchBucket the bucket is provisioned again
+    // and, when the content can be reopened, the upload is retried once
+    private void putObject(String objectName, ObjectContent content, long size, String contentType, boolean replayable) throws Exception {
+        ensureBucket();
+        try {
+            upload(objectName, content, size, contentType, replayable);
+        } catch (Exception e) {
+            if (!markBucketMissing(e)) {
+                throw e;
+            }
+            logger.warn("MinIO bucket {} disappeared, provisioning it again", bucketName);
+            initializeBucket();
+            if (!replayable) {
+                throw e;
+            }
+            upload(objectName, content, size, contentType, true);
+        }
+    }
+
+    private void upload(String objectName, ObjectContent content, long size, String contentType, boolean replayable) throws Exception {
+        if (replayable && content instanceof RangedContent && size >= parallelThresholdBytes && size > parallelPartSizeBytes) {
+            putParallel(objectName, (RangedContent) content, size, contentType);
+        } else {
+            put(objectName, content, size, contentType, replayable);
+        }
+    }
+
+    // Only content that can be reopened is retried; a single-pass stream has already been consumed
+    private void put(String objectName, ObjectContent content, long size, String contentType, boolean replayable) throws Exception {
+        try {
+            execute("put_object", replayable, () -> {
+                try (InputStream stream = new SourceInputStream(content.open())) {
+                    return minioClient.putObject(
+                        PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .stream(stream, size, size < 0 ? STREAM_PART_SIZE : -1)
+                            .contentType(contentType)
+                            .build()
+                    );
+                }
+            });
+        } finally {
+            urlCache.invalidate(objectName);
+        }
+    }
+
+    // The client's own multipart upload sends parts one after another. For large objects the parts are
+    // uploaded concurrently as staging objects, each with its own retries, then composed server-side
+    private void putParallel(String objectName, RangedContent content, long size, String contentType) throws Exception {
+        String partPrefix = INCOMING_FOLDER + "/" + UUID.randomUUID() + ".part-";
+        List<String> partNames = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (long offset = 0; offset < size; offset += parallelPartSizeBytes) {
+                long partOffset = offset;
+                long partLength = Math.min(parallelPartSizeBytes, size - offset);
+                String partName = partPrefix + partNames.size();
+                partNames.add(partName);
+                futures.add(partExecutor.submit(() -> {
+                    put(partName, () -> content.openRange(partOffset, partLength), partLength, contentType, true);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+
+            List<ComposeSource> sources = new ArrayList<>();
+            for (String partName : partNames) {
+                sources.add(ComposeSource.builder().bucket(bucketName).object(partName).build());
+            }
+            execute("compose_object", true, () -> minioClient.composeObject(
+                ComposeObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .sources(sources)
+                    .headers(java.util.Map.of("Content-Type", contentType != null ? contentType : "application/octet-stream"))
+                    .build()
+            ));
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            partNames.forEach(this::removeQuietly);
+            urlCache.invalidate(objectName);
+        }
+    }
+
+    // A refused call stays a StorageUnavailableException so callers can answer 503; anything else keeps its cause
+    private RuntimeException storageFailure(String message, Exception e) {
+        if (e instanceof StorageUnavailableException) {
+            return (StorageUnavailableException) e;
+        }
+        return new RuntimeException(message + e.getMessage(), e);
+    }
+
+    private boolean markBucketMissing(Exception e) {
+        if (e instanceof ErrorResponseException
+                && NO_SUCH_BUCKET.equals(((ErrorResponseException) e).errorResponse().code())) {
+            bucketReady = false;
+            return true;
+        }
+        return false;
+    }
+
+    // Every request sent to MinIO goes through here: refused up front while the circuit is open, retried with
+    // jittered exponential backoff on transient failures when the call is safe to repeat, and timed per
+    // attempt (with a percentile histogram) by operation and outcome
+    private <T> T execute(String operation, boolean retryable, MinioCall<T> call) throws Exception {
+        int maxAttempts = retryable ? Math.max(1, retryMaxAttempts) : 1;
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                rejectedCounter.increment();
+                throw new StorageUnavailableException("MinIO is unavailable (circuit breaker open), " + operation + " not attempted");
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "success";
+            try {
+                T result = call.execute();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (Exception e) {
+                boolean transientFailure = isTransient(e);
+                outcome = transientFailure ? "error" : "rejected";
+                if (!transientFailure) {
+                    // MinIO answered (NoSuchKey, AccessDenied, ...) or the source stream failed: the store is up
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                if (circuitBreaker.onFailure()) {
+                    logger.warn("MinIO circuit breaker opened after {} failed: {}", operation, e.getMessage());
+                }
+                if (attempt >= maxAttempts) {
+                    throw attempt > 1 ? new IOException(operation + " failed after " + attempt + " attempts: " + e.getMessage(), e) : e;
+                }
+                retryCounter.increment();
+                sleepBeforeRetry(attempt);
+            } finally {
+                sample.stop(Timer.builder("minio.requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            }
+        }
+    }
+
+    // Full jitter: uniform in [0, min(max, base * 2^(attempt-1))] so retrying clients do not synchronise
+    private void sleepBeforeRetry(int attempt) throws InterruptedException {
+        long ceiling = Math.min(retryMaxBackoffMs, retryBaseBackoffMs << Math.min(attempt - 1, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    // Network errors, timeouts and 5xx-style responses; errors reading the caller's content are not
+    private boolean isTransient(Exception e) {
+        if (e instanceof StorageUnavailableException) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SourceReadException) {
+                return false;
+            }
+        }
+        if (e instanceof ErrorResponseException) {
+            ErrorResponseException error = (ErrorResponseException) e;
+            return RETRYABLE_ERROR_CODES.contains(error.errorResponse().code())
+                || (error.response() != null && error.response().code() >= 500);
+        }
+        return e instanceof ServerException || e instanceof IOException;
+    }
+
+    @FunctionalInterface
+    private interface MinioCall<T> {
+        T execute() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ObjectContent {
+        InputStream open() throws IOException;
+    }
+
+    // Content a part can be read from at its own offset, without reading or skipping what comes before it
+    private interface RangedContent extends ObjectContent {
+        InputStream openRange(long offset, long length) throws IOException;
+    }
+
+    private static RangedContent bytesContent(byte[] data) {
+        return new RangedContent() {
+            @Override
+            public InputStream open() {
+                return new ByteArrayInputStream(data);
+            }
+
+            @Override
+            public InputStream openRange(long offset, long length) {
+                return new ByteArrayInputStream(data, (int) offset, (int) length);
+            }
+        };
+    }
+
+    // The upload reads exactly the part length, so a range needs no end of its own
+    private static RangedContent fileContent(Path path) {
+        return new RangedContent() {
+            @Override
+            public InputStream open() throws IOException {
+                return Files.newInputStream(path);
+            }
+
+            @Override
+            public InputStream openRange(long offset, long length) throws IOException {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                try {
+                    channel.position(offset);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+                return Channels.newInputStream(channel);
+            }
+        };
+    }
+
+    // Marks I/O failures of the content being uploaded (client aborted, size limit hit) so they are
+    // neither retried nor counted against MinIO
+    private static class SourceReadException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        SourceReadException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    private static class SourceInputStream extends java.io.FilterInputStream {
+        SourceInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw new SourceReadException(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw new SourceReadException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.dto.LeaveRequestDto;
+import com.company.leaveapproval.entity.LeaveRequest;
+import com.company.leaveapproval.entity.LeaveStatus;
+import com.company.leaveapproval.repository.LeaveRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// In-process read model of the pending leave requests, newest first. The leave endpoints update it after each
+// write so the constantly polled pending list and count never touch the database. It is loaded at startup and
+// periodically compared with the database, which also picks up writes made by other instances.
+@Service
+public class PendingLeaveQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingLeaveQueue.class);
+    private static final int LOAD_ATTEMPTS = 3;
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+        .comparing((Entry entry) -> entry.createdAt).reversed()
+        .thenComparing(Comparator.comparing((Entry entry) -> entry.id).reversed());
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ordered = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    // Bumped by every write so a reconcile that overlapped one is not applied over it
+    private long version;
+    private volatile boolean loaded;
+    private Counter driftCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("leave.pending.queue.size", byId, Map::size).register(meterRegistry);
+        driftCounter = meterRegistry.counter("leave.pending.queue.drift");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        for (int attempt = 1; attempt <= LOAD_ATTEMPTS && !loaded; attempt++) {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                logger.warn("Pending leave queue could not be loaded: {}", e.getMessage());
+            }
+        }
+        if (loaded) {
+            logger.info("Pending leave queue loaded with {} requests", byId.size());
+        }
+    }
+
+    // Until the first load succeeds callers read the database instead
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public List<LeaveRequestDto> list() {
+        List<LeaveRequestDto> requests = new ArrayList<>(byId.size());
+        for (Entry entry : ordered) {
+            requests.add(entry.dto);
+        }
+        return requests;
+    }
+
+    public int count() {
+        return byId.size();
+    }
+
+    // Call after the write is committed; employee and approver must be loaded
+    public synchronized void update(LeaveRequest request) {
+        version++;
+        if (request.getStatus() == LeaveStatus.PENDING) {
+            put(request);
+        } else {
+            removeEntry(request.getId());
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        version++;
+        removeEntry(id);
+    }
+
+    public synchronized void removeByEmployeeEmail(String email) {
+        version++;
+        for (Entry entry : new ArrayList<>(byId.values())) {
+            if (Objects.equals(entry.dto.getEmployeeEmail(), email)) {
+                removeEntry(entry.id);
+            }
+        }
+    }
+
+    // Consistency check: brings the queue in line with the pending ids in the database (served by the partial
+    // index). Skipped when a write lands while the database is read; the next run catches up
+    @Scheduled(fixedDelayString = "${leave.pending-queue.reconcile-interval-ms:60000}",
+               initialDelayString = "${leave.pending-queue.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        long startVersion;
+        Set<Long> cachedIds;
+        synchronized (this) {
+            startVersion = version;
+            cachedIds = new HashSet<>(byId.keySet());
+        }
+        Set<Long> pendingIds = new HashSet<>(leaveRequestRepository.findPendingIds());
+
+        Set<Long> missing = new HashSet<>(pendingIds);
+        missing.removeAll(cachedIds);
+        Set<Long> stale = new HashSet<>(cachedIds);
+        stale.removeAll(pendingIds);
+        if (loaded && missing.isEmpty() && stale.isEmpty()) {
+            return;
+        }
+        List<LeaveRequest> added = missing.isEmpty() ? List.of() : leaveRequestRepository.findPendingByIdIn(missing);
+
+        synchronized (this) {
+            if (version != startVersion) {
+                logger.debug("Pending leave queue changed during reconciliation, deferred");
+                return;
+            }
+            stale.forEach(this::removeEntry);
+            added.forEach(this::put);
+            if (loaded) {
+                driftCounter.increment(missing.size() + stale.size());
+                logger.warn("Pending leave queue drifted from the database: {} missing, {} stale", missing.size(), stale.size());
+            }
+            loaded = true;
+        }
+    }
+
+    private void put(LeaveRequest request) {
+        removeEntry(request.getId());
+        Entry entry = new Entry(request.getId(),
+            request.getCreatedAt() != null ? request.getCreatedAt() : LocalDateTime.MIN,
+            LeaveRequestDto.fromEntity(request));
+        byId.put(entry.id, entry);
+        ordered.add(entry);
+    }
+
+    private void removeEntry(Long id) {
+        Entry entry = byId.remove(id);
+        if (entry != null) {
+            ordered.remove(entry);
+        }
+    }
+
+    private static class Entry {
+        private final Long id;
+        private final LocalDateTime createdAt;
+        private final LeaveRequestDto dto;
+
+        private Entry(Long id, LocalDateTime createdAt, LeaveRequestDto dto) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.dto = dto;
+        }
+    }
+}
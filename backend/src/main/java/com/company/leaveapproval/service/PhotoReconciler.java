@@ -0,0 +1,239 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.repository.AttendanceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Removes stored photos no attendance record points at any more: uploads whose check-in failed, photos of
+// deleted users and abandoned staging objects. The bucket listing is streamed page by page and each key is
+// tested against a Bloom filter of the referenced keys; keys the filter rules out are rechecked exactly
+// against the database in batches before they are deleted, so memory stays bounded by the filter and one batch.
+// Age is judged by the object's timestamp, which uploads that reuse an existing object refresh (dedup hits).
+@Service
+public class PhotoReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoReconciler.class);
+    private static final String INCOMING_PREFIX = "incoming/";
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${storage.reconciler.enabled:true}")
+    private boolean enabled;
+
+    // Photo folders to scan; incoming/ is always swept for abandoned staging objects
+    @Value("${storage.reconciler.prefixes:check-in/,check-out/}")
+    private String prefixesProperty;
+
+    // Objects younger than this are left alone, their attendance row may not be committed yet
+    @Value("${storage.reconciler.grace-hours:24}")
+    private long graceHours;
+
+    @Value("${storage.reconciler.batch-size:500}")
+    private int batchSize;
+
+    @Value("${storage.reconciler.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private Timer runTimer;
+    private Counter scannedCounter;
+    private Counter deletedCounter;
+    private Counter deletedBytesCounter;
+
+    @PostConstruct
+    public void init() {
+        runTimer = meterRegistry.timer("storage.reconciler.run.latency");
+        scannedCounter = meterRegistry.counter("storage.reconciler.scanned");
+        deletedCounter = meterRegistry.counter("storage.reconciler.deleted");
+        deletedBytesCounter = meterRegistry.counter("storage.reconciler.deleted.bytes");
+    }
+
+    @Scheduled(cron = "${storage.reconciler.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    // Returns the number of objects deleted, or -1 when a run is already in progress
+    public long reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Photo reconciliation already running, skipped");
+            return -1;
+        }
+        long start = System.nanoTime();
+        try {
+            Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+            BloomFilter referenced = buildReferencedFilter();
+            Sweep sweep = new Sweep(referenced, cutoff);
+
+            for (String prefix : prefixesProperty.split(",")) {
+                if (!prefix.isBlank()) {
+                    storageService.listObjects(prefix.trim(), sweep::visit);
+                }
+            }
+            storageService.listObjects(INCOMING_PREFIX, sweep::visitStaged);
+            sweep.flush();
+
+            logger.info("Photo reconciliation scanned {} objects and deleted {} ({} bytes)",
+                sweep.scanned, sweep.deleted, sweep.deletedBytes);
+            return sweep.deleted;
+        } catch (Exception e) {
+            logger.error("Photo reconciliation failed: {}", e.getMessage());
+            throw new RuntimeException("Error reconciling photos: " + e.getMessage());
+        } finally {
+            runTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            running.set(false);
+        }
+    }
+
+    // Sized from the current key count; the key cursor needs a read-only transaction to stream
+    private BloomFilter buildReferencedFilter() {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            BloomFilter filter = new BloomFilter(attendanceRepository.countPhotoKeys(), falsePositiveRate);
+            try (Stream<String> keys = attendanceRepository.streamPhotoKeys()) {
+                keys.forEach(filter::put);
+            }
+            logger.debug("Referenced photo filter built, {} bytes", filter.sizeInBytes());
+            return filter;
+        });
+    }
+
+    private class Sweep {
+        private final BloomFilter referenced;
+        private final Instant cutoff;
+        private final List<StoredObjectInfo> candidates = new ArrayList<>();
+        private final List<StoredObjectInfo> unreferenced = new ArrayList<>();
+        private long scanned;
+        private long deleted;
+        private long deletedBytes;
+
+        Sweep(BloomFilter referenced, Instant cutoff) {
+            this.referenced = referenced;
+            this.cutoff = cutoff;
+        }
+
+        // Renditions live as long as their original, or on their own once retention points a row straight at them
+        void visit(StoredObjectInfo object) {
+            scanned++;
+            scannedCounter.increment();
+            String objectName = object.getObjectName();
+            if (isRecent(object) || referenced.mightContain(objectName)
+                    || referenced.mightContain(thumbnailService.originalKey(objectName))) {
+                return;
+            }
+            candidates.add(object);
+            if (candidates.size() >= batchSize) {
+                recheck();
+            }
+        }
+
+        // Staging objects are never referenced; once past the grace period their upload is long gone
+        void visitStaged(StoredObjectInfo object) {
+            scanned++;
+            scannedCounter.increment();
+            if (!isRecent(object)) {
+                delete(object);
+            }
+        }
+
+        void flush() {
+            recheck();
+            deleteBatch();
+        }
+
+        private boolean isRecent(StoredObjectInfo object) {
+            return object.getLastModified() == null || object.getLastModified().isAfter(cutoff);
+        }
+
+        // The filter is a snapshot: rows written since it was built must still protect their photos
+        private void recheck() {
+            if (candidates.isEmpty()) {
+                return;
+            }
+            Set<String> keys = new HashSet<>();
+            for (StoredObjectInfo object : candidates) {
+                keys.add(object.getObjectName());
+                keys.add(thumbnailService.originalKey(object.getObjectName()));
+            }
+            Set<String> stillReferenced = new HashSet<>(attendanceRepository.findReferencedPhotoKeys(keys));
+            for (StoredObjectInfo object : candidates) {
+                if (!stillReferenced.contains(object.getObjectName())
+                        && !stillReferenced.contains(thumbnailService.originalKey(object.getObjectName()))
+                        && !touchedSinceListing(object)) {
+                    delete(object);
+                }
+            }
+            candidates.clear();
+        }
+
+        // Uploads that dedup onto an existing object refresh its timestamp before their row is written; one
+        // that landed after the listing must keep the object
+        private boolean touchedSinceListing(StoredObjectInfo object) {
+            try {
+                return isRecent(storageService.stat(object.getObjectName()));
+            } catch (Exception e) {
+                // Already gone, or unknown: leave it for the next run
+                return true;
+            }
+        }
+
+        private void delete(StoredObjectInfo object) {
+            unreferenced.add(object);
+            if (unreferenced.size() >= batchSize) {
+                deleteBatch();
+            }
+        }
+
+        private void deleteBatch() {
+            if (unreferenced.isEmpty()) {
+                return;
+            }
+            List<String> objectNames = new ArrayList<>(unreferenced.size());
+            long bytes = 0;
+            for (StoredObjectInfo object : unreferenced) {
+                objectNames.add(object.getObjectName());
+                bytes += object.getSize();
+            }
+            storageService.deleteFiles(objectNames);
+            thumbnailService.forget(objectNames);
+            deleted += objectNames.size();
+            deletedBytes += bytes;
+            deletedCounter.increment(objectNames.size());
+            deletedBytesCounter.increment(bytes);
+            unreferenced.clear();
+        }
+    }
+}
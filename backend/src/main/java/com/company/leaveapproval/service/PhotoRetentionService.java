@@ -0,0 +1,257 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.entity.Attendance;
+import com.company.leaveapproval.repository.AttendanceJdbcRepository;
+import com.company.leaveapproval.repository.AttendanceRepository;
+import com.company.leaveapproval.repository.RetentionCheckpointRepository;
+import com.company.leaveapproval.repository.RetentionCheckpointRepository.Checkpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Photo retention. Once a record is older than originals-days its full-size photo and larger renditions are
+// deleted and the column is pointed at the smallest rendition, or left alone while that rendition cannot be
+// produced; once it is older than thumbnails-days that goes too and the column is cleared. Each record stores the
+// last stage it has been through, and each stage walks the records still due for it in (date, id) chunks from a
+// stored checkpoint: a restart resumes where the last chunk ended, and a new pass only revisits records with work
+// left (back-dated ones, or ones a transient failure held back). Column updates, stage marks and the checkpoint
+// commit together before the objects are removed: a crash in between only leaves unreferenced objects for the
+// PhotoReconciler.
+@Service
+public class PhotoRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoRetentionService.class);
+    private static final String ORIGINALS_JOB = "photo-originals";
+    private static final String THUMBNAILS_JOB = "photo-thumbnails";
+    private static final String DATA_URL_MARKER = "data:";
+    private static final Checkpoint START = new Checkpoint(LocalDate.of(1900, 1, 1), 0);
+    // Values of attendance.photo_retention_stage
+    private static final int ORIGINALS_STAGE = 1;
+    private static final int THUMBNAILS_STAGE = 2;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private RetentionCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${attendance.photo-retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${attendance.photo-retention.originals-days:90}")
+    private int originalsDays;
+
+    @Value("${attendance.photo-retention.thumbnails-days:365}")
+    private int thumbnailsDays;
+
+    @Value("${attendance.photo-retention.chunk-size:500}")
+    private int chunkSize;
+
+    // Bounds one run; the rest is picked up from the checkpoint by the next one
+    @Value("${attendance.photo-retention.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private Counter rowsCounter;
+    private Counter objectsCounter;
+
+    @PostConstruct
+    public void init() {
+        rowsCounter = meterRegistry.counter("attendance.photo.retention.rows");
+        objectsCounter = meterRegistry.counter("attendance.photo.retention.objects.deleted");
+    }
+
+    @Scheduled(cron = "${attendance.photo-retention.cron:0 0 2 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            applyRetention();
+        }
+    }
+
+    public void applyRetention() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Photo retention already running, skipped");
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate thumbnailsCutoff = today.minusDays(thumbnailsDays);
+            // Thumbnails first, and the originals stage stops at its cutoff: a record past thumbnails-days never
+            // gets a thumbnail generated only to have it deleted
+            int thumbnailRows = runStage(THUMBNAILS_JOB, THUMBNAILS_STAGE, START.getDate(), thumbnailsCutoff);
+            // Without thumbnails there is nothing to reduce originals to; they are kept until the second stage
+            int originalRows = thumbnailService.isEnabled()
+                ? runStage(ORIGINALS_JOB, ORIGINALS_STAGE, thumbnailsCutoff, today.minusDays(originalsDays))
+                : 0;
+            logger.info("Photo retention updated {} rows past {} days and {} rows past {} days",
+                originalRows, originalsDays, thumbnailRows, thumbnailsDays);
+        } catch (Exception e) {
+            logger.error("Photo retention failed: {}", e.getMessage());
+            throw new RuntimeException("Error applying photo retention: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Rows dated in [from, cutoff) are expired for this stage; returns the number of rows changed
+    private int runStage(String jobName, int stage, LocalDate from, LocalDate cutoff) {
+        Checkpoint checkpoint = checkpointRepository.find(jobName);
+        if (checkpoint == null) {
+            checkpoint = START;
+        }
+        int changedRows = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<Attendance> rows = attendanceJdbcRepository.findPhotoChunk(stage, from, cutoff, checkpoint.getDate(),
+                checkpoint.getId(), chunkSize);
+            // A finished pass starts over on the next run; rows done for this stage are no longer read, so that
+            // only picks up rows that landed behind the checkpoint meanwhile and rows that are to be retried
+            boolean passDone = rows.size() < chunkSize;
+            if (rows.isEmpty()) {
+                checkpointRepository.save(jobName, START);
+                break;
+            }
+            Attendance last = rows.get(rows.size() - 1);
+            Checkpoint next = passDone ? START : new Checkpoint(last.getDate(), last.getId());
+            changedRows += processChunk(jobName, stage, rows, next);
+            if (passDone) {
+                break;
+            }
+            checkpoint = next;
+        }
+        return changedRows;
+    }
+
+    private int processChunk(String jobName, int stage, List<Attendance> rows, Checkpoint next) {
+        boolean removeAll = stage == THUMBNAILS_STAGE;
+        List<Attendance> changed = new ArrayList<>();
+        List<Long> done = new ArrayList<>();
+        Set<String> originals = new LinkedHashSet<>();
+        Set<String> retry = new HashSet<>();
+        for (Attendance row : rows) {
+            String checkIn = expire(row.getCheckInPhotoUrl(), removeAll, originals, retry);
+            String checkOut = expire(row.getCheckOutPhotoUrl(), removeAll, originals, retry);
+            if (!Objects.equals(checkIn, row.getCheckInPhotoUrl()) || !Objects.equals(checkOut, row.getCheckOutPhotoUrl())) {
+                row.setCheckInPhotoUrl(checkIn);
+                row.setCheckOutPhotoUrl(checkOut);
+                changed.add(row);
+            }
+            if (!retry.contains(checkIn) && !retry.contains(checkOut)) {
+                done.add(row.getId());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            attendanceJdbcRepository.batchUpdatePhotoUrls(changed);
+            attendanceJdbcRepository.markRetentionStage(done, stage);
+            checkpointRepository.save(jobName, next);
+        });
+        rowsCounter.increment(changed.size());
+
+        // Checked against the committed columns, this chunk's rows included
+        List<String> objectNames = removableObjects(originals);
+
+        if (!objectNames.isEmpty()) {
+            try {
+                storageService.deleteFiles(objectNames);
+                thumbnailService.forget(objectNames);
+                objectsCounter.increment(objectNames.size());
+            } catch (Exception e) {
+                // The rows no longer point at them, the reconciler removes them on its next sweep
+                logger.warn("Photo retention could not delete {} objects: {}", objectNames.size(), e.getMessage());
+            }
+        }
+        return changed.size();
+    }
+
+    // New column value for an expired photo; stored originals whose objects may go are collected in originals,
+    // photos to try again on a later pass in retry
+    private String expire(String photo, boolean removeAll, Set<String> originals, Set<String> retry) {
+        if (photo == null) {
+            return null;
+        }
+        if (photo.startsWith(DATA_URL_MARKER)) {
+            // Legacy inline photo, nothing in the object store
+            return null;
+        }
+        if (!thumbnailService.isStoredPhoto(photo)) {
+            return photo;
+        }
+        String original = thumbnailService.originalKey(photo);
+        if (removeAll) {
+            originals.add(original);
+            return null;
+        }
+        if (!original.equals(photo)) {
+            // Already reduced to its thumbnail
+            return photo;
+        }
+        // The thumbnail has to exist before the original it is rendered from goes away; an earlier record
+        // sharing the photo may already have produced it
+        String thumbnail = thumbnailService.renditionKey(original, thumbnailService.thumbnailWidth());
+        try {
+            if (!thumbnailService.renditionStored(thumbnail) && !thumbnailService.generateFor(thumbnail)) {
+                // Not an image, so there is nothing to reduce it to; kept in full until the second stage
+                return photo;
+            }
+        } catch (Exception e) {
+            logger.debug("No thumbnail for {} yet, photo kept: {}", original, e.getMessage());
+            retry.add(photo);
+            return photo;
+        }
+        originals.add(original);
+        return thumbnail;
+    }
+
+    // Objects are content-addressed and shared across records of any date. An object goes only once no
+    // record points at it or at the original it was rendered from, so the thumbnail a record was just
+    // reduced to stays, and so does everything behind a photo another record still shows in full
+    private List<String> removableObjects(Set<String> originals) {
+        List<String> objectNames = new ArrayList<>();
+        if (originals.isEmpty()) {
+            return objectNames;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (String original : originals) {
+            keys.add(original);
+            keys.addAll(thumbnailService.renditionKeys(original));
+        }
+        Set<String> inUse = new HashSet<>(attendanceRepository.findReferencedPhotoKeys(keys));
+        for (String key : keys) {
+            if (!inUse.contains(key) && !inUse.contains(thumbnailService.originalKey(key))) {
+                objectNames.add(key);
+            }
+        }
+        return objectNames;
+    }
+}
@@ -0,0 +1,208 @@
+package com.company.leaveapproval.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.UploadContext;
+import org.apache.commons.fileupload.util.Streams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Reads a multipart request part by part and pipes the photo part straight into photo storage.
+// Nothing is spooled to heap or temp disk; form fields must be sent before the photo part.
+@Service
+public class PhotoStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoStreamService.class);
+    private static final int MAX_FIELD_LENGTH = 1024;
+    private static final long MAX_PARTS = 20;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${attendance.photo-stream.max-file-size-bytes:10485760}")
+    private long maxFileSize;
+
+    @Value("${attendance.photo-stream.max-request-size-bytes:12582912}")
+    private long maxRequestSize;
+
+    @Value("${attendance.photo-stream.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${attendance.photo-stream.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    // Caps uploads in flight; with MinIO each holds at most one multipart part buffer
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent);
+        meterRegistry.gauge("attendance.photo.stream.active", permits, p -> maxConcurrent - p.availablePermits());
+    }
+
+    // Parses the request; requiredFields must all have arrived before the photo part is uploaded
+    public StreamedForm receive(HttpServletRequest request, String photoField, String folder,
+                                Collection<String> requiredFields) {
+        UploadContext context = new ServletUploadContext(request);
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/")) {
+            throw new RuntimeException("Expected a multipart/form-data request");
+        }
+        acquire();
+        StreamedForm form = new StreamedForm();
+        try {
+            FileUpload upload = new FileUpload();
+            upload.setFileSizeMax(maxFileSize);
+            upload.setSizeMax(maxRequestSize);
+            upload.setFileCountMax(MAX_PARTS);
+            upload.setHeaderEncoding(StandardCharsets.UTF_8.name());
+
+            FileItemIterator items = upload.getItemIterator(context);
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                try (InputStream stream = item.openStream()) {
+                    if (item.isFormField()) {
+                        String value = Streams.asString(stream, StandardCharsets.UTF_8.name());
+                        if (value.length() > MAX_FIELD_LENGTH) {
+                            throw new RuntimeException("Form field too long: " + item.getFieldName());
+                        }
+                        form.fields.put(item.getFieldName(), value);
+                    } else if (photoField.equals(item.getFieldName()) && form.photoKey == null) {
+                        for (String field : requiredFields) {
+                            if (!form.fields.containsKey(field)) {
+                                throw new RuntimeException("Field '" + field + "' must be sent before " + photoField);
+                            }
+                        }
+                        if (item.getName() != null && !item.getName().isEmpty()) {
+                            form.photoKey = storageService.uploadStream(stream, -1, item.getName(), item.getContentType(), folder);
+                            thumbnailService.submit(form.photoKey);
+                        }
+                    }
+                    // Any other file part is drained and dropped by closing its stream
+                }
+            }
+            return form;
+        } catch (Exception e) {
+            discard(form);
+            if (isSizeLimit(e)) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Photo upload exceeds the size limit");
+            }
+            if (StorageUnavailableException.isCause(e)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Photo storage is unavailable");
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new RuntimeException("Error reading multipart request: " + e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Forgets the photo of an attendance update that did not go through. The object is not deleted here:
+    // objects are content-addressed, so another upload of the same selfie may have deduplicated onto it with
+    // its row not committed yet. A true orphan is removed by the PhotoReconciler after its grace period
+    public void discard(StreamedForm form) {
+        if (form == null || form.photoKey == null) {
+            return;
+        }
+        logger.debug("Photo {} left for the reconciler", form.photoKey);
+        form.photoKey = null;
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                meterRegistry.counter("attendance.photo.stream.rejected").increment();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many photo uploads in progress");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting to upload");
+        }
+    }
+
+    // Limits surface as size exceptions, possibly wrapped by the fileupload stream or the storage upload
+    private boolean isSizeLimit(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FileUploadBase.FileSizeLimitExceededException
+                    || cause instanceof FileUploadBase.SizeLimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class StreamedForm {
+        private final Map<String, String> fields = new HashMap<>();
+        private String photoKey; // null when no photo part was sent
+
+        public String getField(String name) {
+            return fields.get(name);
+        }
+
+        public String getPhotoKey() {
+            return photoKey;
+        }
+    }
+
+    // commons-fileupload 1.x targets javax.servlet, so adapt the jakarta request by hand
+    private static class ServletUploadContext implements UploadContext {
+        private final HttpServletRequest request;
+
+        ServletUploadContext(HttpServletRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return request.getCharacterEncoding();
+        }
+
+        @Override
+        public String getContentType() {
+            return request.getContentType();
+        }
+
+        @Override
+        @Deprecated
+        public int getContentLength() {
+            return request.getContentLength();
+        }
+
+        @Override
+        public long contentLength() {
+            return request.getContentLengthLong();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return request.getInputStream();
+        }
+    }
+}
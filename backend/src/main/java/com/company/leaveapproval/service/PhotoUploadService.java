@@ -0,0 +1,159 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.entity.PhotoUploadStatus;
+import com.company.leaveapproval.repository.AttendanceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Uploads attendance photos off the request thread and backfills the photo URL once stored. Queued uploads live
+// only in memory, so rows left PENDING by a restart are marked FAILED once they are older than the drain window.
+// Transient storage failures are retried inside StorageService (MinIOService.execute), not again here
+@Service
+public class PhotoUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoUploadService.class);
+
+    public enum PhotoSlot {
+        CHECK_IN,
+        CHECK_OUT
+    }
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Value("${attendance.photo-upload.async:true}")
+    private boolean asyncEnabled;
+
+    @Value("${attendance.photo-upload.threads:4}")
+    private int threads;
+
+    @Value("${attendance.photo-upload.queue-capacity:500}")
+    private int queueCapacity;
+
+    // Longer than any upload can sit in the queue and run; PENDING rows older than this are abandoned
+    @Value("${attendance.photo-upload.stale-pending-minutes:15}")
+    private long stalePendingMinutes;
+
+    private ThreadPoolExecutor executor;
+    private Timer uploadTimer;
+    private Counter failureCounter;
+    private Counter abandonedCounter;
+    private Counter callerRunsCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "photo-upload-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("attendance.photo.upload.queue.depth", executor, e -> e.getQueue().size())
+            .description("Photo uploads waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("attendance.photo.upload.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Photo uploads currently running")
+            .register(meterRegistry);
+        uploadTimer = Timer.builder("attendance.photo.upload.latency")
+            .description("Time to store one photo")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        failureCounter = meterRegistry.counter("attendance.photo.upload.failures");
+        abandonedCounter = meterRegistry.counter("attendance.photo.upload.abandoned");
+        callerRunsCounter = meterRegistry.counter("attendance.photo.upload.caller.runs");
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Photo upload executor did not drain, {} uploads left pending", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    // Queue an upload for an attendance row that was already saved with a PENDING photo status
+    public void submit(Long attendanceId, PhotoSlot slot, Callable<String> upload) {
+        Runnable task = () -> runUpload(attendanceId, slot, upload);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Queue is full: upload on the caller thread so the backlog cannot grow without bound
+            callerRunsCounter.increment();
+            task.run();
+        }
+    }
+
+    // Runs immediately at startup and then periodically, which also covers uploads lost by other instances
+    @Scheduled(fixedDelayString = "${attendance.photo-upload.stale-check-interval-ms:300000}")
+    public void failStaleUploads() {
+        try {
+            int rows = attendanceRepository.markStaleCheckInUploads(stalePendingMinutes)
+                + attendanceRepository.markStaleCheckOutUploads(stalePendingMinutes);
+            if (rows > 0) {
+                abandonedCounter.increment(rows);
+                logger.warn("Marked {} photo uploads pending for over {} minutes as FAILED", rows, stalePendingMinutes);
+            }
+        } catch (Exception e) {
+            logger.error("Could not mark stale photo uploads as failed: {}", e.getMessage());
+        }
+    }
+
+    private void runUpload(Long attendanceId, PhotoSlot slot, Callable<String> upload) {
+        long start = System.nanoTime();
+        try {
+            String photoUrl = upload.call();
+            uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            updatePhoto(attendanceId, slot, photoUrl, PhotoUploadStatus.UPLOADED);
+            thumbnailService.submit(photoUrl);
+        } catch (Exception e) {
+            logger.warn("Photo upload failed for attendance {} ({}): {}", attendanceId, slot, e.getMessage());
+            failureCounter.increment();
+            updatePhoto(attendanceId, slot, null, PhotoUploadStatus.FAILED);
+        }
+    }
+
+    private void updatePhoto(Long attendanceId, PhotoSlot slot, String photoUrl, PhotoUploadStatus status) {
+        try {
+            if (slot == PhotoSlot.CHECK_IN) {
+                attendanceRepository.updateCheckInPhoto(attendanceId, photoUrl, status);
+            } else {
+                attendanceRepository.updateCheckOutPhoto(attendanceId, photoUrl, status);
+            }
+        } catch (Exception e) {
+            logger.error("Could not record {} photo status {} for attendance {}: {}",
+                slot, status, attendanceId, e.getMessage(), e);
+        }
+    }
+}
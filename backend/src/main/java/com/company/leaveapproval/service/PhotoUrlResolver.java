@@ -0,0 +1,114 @@
+package com.company.leaveapproval.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Turns stored photo values into viewable URLs, signing object keys in parallel for batches
+@Service
+public class PhotoUrlResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoUrlResolver.class);
+    private static final String UPLOAD_ERROR_MARKER = "error-uploading-photo";
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Value("${attendance.photo-url.threads:4}")
+    private int threads;
+
+    // When set, object keys resolve to the stable proxy URL instead of a presigned one, so browsers can cache them
+    @Value("${attendance.photo-url.proxy-base-url:}")
+    private String proxyBaseUrl;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "photo-url-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Same rules as GET /api/attendance/photo/{objectKey}: data and http values pass through, keys are presigned
+    public String resolve(String photo) {
+        if (photo == null || photo.isEmpty() || UPLOAD_ERROR_MARKER.equals(photo)) {
+            return null;
+        }
+        if (photo.startsWith("data:") || photo.startsWith("http")) {
+            return photo;
+        }
+        if (!proxyBaseUrl.isEmpty()) {
+            return proxyBaseUrl + "/" + UriUtils.encodePath(photo, StandardCharsets.UTF_8);
+        }
+        return storageService.getFileUrl(photo);
+    }
+
+    // Grid-sized URL for a stored original. The proxy serves the original itself while a rendition is missing;
+    // presigned URLs go straight to storage, so they only point at renditions that exist
+    public String resolveThumbnail(String photo) {
+        if (!thumbnailService.hasRenditions(photo)) {
+            return null;
+        }
+        String thumbnail = thumbnailService.renditionKey(photo, thumbnailService.thumbnailWidth());
+        if (proxyBaseUrl.isEmpty() && !thumbnailService.renditionExists(thumbnail)) {
+            return resolve(photo);
+        }
+        return resolve(thumbnail);
+    }
+
+    // Resolves every distinct value; values that cannot be resolved map to null
+    public Map<String, String> resolveAll(Collection<String> photos) {
+        return resolveAll(photos, this::resolve);
+    }
+
+    // Thumbnail URLs of every distinct original, see resolveThumbnail
+    public Map<String, String> resolveThumbnails(Collection<String> photos) {
+        return resolveAll(photos, this::resolveThumbnail);
+    }
+
+    private Map<String, String> resolveAll(Collection<String> photos, Function<String, String> resolver) {
+        Map<String, CompletableFuture<String>> pending = new LinkedHashMap<>();
+        for (String photo : new LinkedHashSet<>(photos)) {
+            if (photo == null) {
+                continue;
+            }
+            pending.put(photo, CompletableFuture.supplyAsync(() -> resolver.apply(photo), executor)
+                .exceptionally(e -> {
+                    logger.warn("Could not resolve photo URL for {}: {}", photo, e.getMessage());
+                    return null;
+                }));
+        }
+
+        Map<String, String> urls = new LinkedHashMap<>();
+        pending.forEach((photo, future) -> urls.put(photo, future.join()));
+        return urls;
+    }
+}
@@ -0,0 +1,55 @@
+package com.company.leaveapproval.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU cache of presigned URLs keyed by object name; entries expire after a fixed time to live
+public class PresignedUrlCache {
+
+    private final long ttlMillis;
+    private final Map<String, CachedUrl> entries;
+
+    public PresignedUrlCache(int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUrl> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized String get(String objectName) {
+        CachedUrl cached = entries.get(objectName);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(objectName);
+            return null;
+        }
+        return cached.url;
+    }
+
+    public synchronized void put(String objectName, String url) {
+        entries.put(objectName, new CachedUrl(url, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void invalidate(String objectName) {
+        entries.remove(objectName);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class CachedUrl {
+        private final String url;
+        private final long expiresAt;
+
+        private CachedUrl(String url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.company.leaveapproval.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Content-hash dedup outcomes shared by all storage backends
+@Component
+public class StorageDedupMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter bytesSaved;
+
+    @PostConstruct
+    public void init() {
+        hits = meterRegistry.counter("storage.dedup.requests", "result", "hit");
+        misses = meterRegistry.counter("storage.dedup.requests", "result", "miss");
+        bytesSaved = meterRegistry.counter("storage.dedup.bytes.saved");
+        Gauge.builder("storage.dedup.hit.ratio", this, StorageDedupMetrics::hitRatio).register(meterRegistry);
+    }
+
+    // The object already existed, so no new copy was stored
+    public void hit(long bytes) {
+        hits.increment();
+        if (bytes > 0) {
+            bytesSaved.increment(bytes);
+        }
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
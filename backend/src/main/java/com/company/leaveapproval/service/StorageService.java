@@ -0,0 +1,98 @@
+package com.company.leaveapproval.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+
+// Photo object store. Selected by storage.backend (minio, local or memory); every backend uses the same
+// content-addressed object keys, so stored attendance rows stay valid when the backend is switched and
+// re-submitted photos share one object.
+public interface StorageService {
+
+    String uploadFile(MultipartFile file, String folder);
+
+    // size may be -1 when the length is not known up front
+    String uploadStream(InputStream stream, long size, String originalFilename, String contentType, String folder);
+
+    String uploadBase64Image(String base64Data, String folder);
+
+    // For content already held in memory (background uploads), hashed up front so no staging is needed
+    String uploadBytes(byte[] data, String originalFilename, String contentType, String folder);
+
+    // Stores data under a caller-chosen key, used for derived objects such as thumbnails
+    void putBytes(String objectName, byte[] data, String contentType);
+
+    InputStream getFile(String objectName);
+
+    StoredObjectInfo stat(String objectName);
+
+    // Copies length bytes starting at offset to out; backends may use a cheaper path than getFile
+    long writeTo(String objectName, long offset, long length, OutputStream out) throws IOException;
+
+    // Time-limited URL a browser can load directly
+    String getFileUrl(String objectName);
+
+    void deleteFile(String objectName);
+
+    // Removes the objects in as few requests as the backend allows; missing objects are ignored
+    void deleteFiles(Collection<String> objectNames);
+
+    // Hands every object under prefix to consumer as the listing is paged in, never holding the whole listing
+    void listObjects(String prefix, Consumer<StoredObjectInfo> consumer);
+
+    // Whether the backend is provisioned (bucket or directory exists)
+    boolean isReady();
+
+    void initialize();
+
+    String testConnection();
+
+    String uploadTestFile();
+
+    // Content-addressed key: identical bytes in the same folder always map to the same object
+    static String contentKey(String folder, byte[] sha256, String extension) {
+        return folder + "/" + HexFormat.of().formatHex(sha256) + extension;
+    }
+
+    // Base64 check-in photos are always stored as JPEG
+    String IMAGE_EXTENSION = ".jpg";
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Hashes a stream without keeping its bytes
+    static byte[] sha256(InputStream stream) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    // Lower-case extension of the uploaded file name (".png"), empty when there is no usable one
+    static String extension(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        int dot = originalFilename.lastIndexOf('.');
+        if (dot < 0 || originalFilename.length() - dot > 10) {
+            return "";
+        }
+        String extension = originalFilename.substring(dot).toLowerCase();
+        return extension.matches("\\.[a-z0-9]+") ? extension : "";
+    }
+}
@@ -0,0 +1,21 @@
+package com.company.leaveapproval.service;
+
+// The object store is known to be down (circuit breaker open), so the call was refused without trying it
+public class StorageUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StorageUnavailableException(String message) {
+        super(message);
+    }
+
+    // Whether e or one of its causes is a refused storage call
+    public static boolean isCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StorageUnavailableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.company.leaveapproval.service;
+
+import java.time.Instant;
+
+// Object metadata as reported by the storage backend
+public class StoredObjectInfo {
+    private final String objectName;
+    private final long size;
+    private final String contentType;
+    private final Instant lastModified;
+    private final String etag; // unquoted entity tag, changes whenever the content does
+
+    public StoredObjectInfo(String objectName, long size, String contentType, Instant lastModified, String etag) {
+        this.objectName = objectName;
+        this.size = size;
+        this.contentType = contentType;
+        this.lastModified = lastModified;
+        this.etag = etag;
+    }
+
+    public String getObjectName() {
+        return objectName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
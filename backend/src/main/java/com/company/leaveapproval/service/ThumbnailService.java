@@ -0,0 +1,417 @@
+package com.company.leaveapproval.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Downscaled JPEG renditions of uploaded photos, generated off the request thread and stored next to the
+// original as <objectKey>.w<width>.jpg. Missing renditions are queued again when someone asks for them; until
+// then callers fall back to the original.
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+    private static final Pattern RENDITION_KEY = Pattern.compile("^(.+)\\.w(\\d+)\\.jpg$");
+    private static final String UPLOAD_ERROR_MARKER = "error-uploading-photo";
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${attendance.thumbnails.enabled:true}")
+    private boolean enabled;
+
+    @Value("${attendance.thumbnails.widths:160,640}")
+    private String widthsProperty;
+
+    @Value("${attendance.thumbnails.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${attendance.thumbnails.threads:1}")
+    private int threads;
+
+    @Value("${attendance.thumbnails.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${attendance.thumbnails.known-cache-size:10000}")
+    private int knownCacheSize;
+
+    private List<Integer> widths; // ascending
+    private ThreadPoolExecutor executor;
+    // Renditions seen in storage; they never change once written, so a hit needs no round trip
+    private Map<String, Boolean> knownRenditions;
+    // Originals queued or being rendered, so repeated views of a missing thumbnail queue it once
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private Timer generateTimer;
+    private Counter failureCounter;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void init() {
+        List<Integer> parsed = new ArrayList<>();
+        for (String width : widthsProperty.split(",")) {
+            if (!width.isBlank()) {
+                parsed.add(Integer.valueOf(width.trim()));
+            }
+        }
+        Collections.sort(parsed);
+        widths = Collections.unmodifiableList(parsed);
+        knownRenditions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > knownCacheSize;
+            }
+        });
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "photo-thumbnail-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        generateTimer = meterRegistry.timer("attendance.photo.thumbnail.latency");
+        failureCounter = meterRegistry.counter("attendance.photo.thumbnail.failures");
+        droppedCounter = meterRegistry.counter("attendance.photo.thumbnail.dropped");
+        meterRegistry.gauge("attendance.photo.thumbnail.queue.depth", executor, e -> e.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled && !widths.isEmpty();
+    }
+
+    // Smallest rendition, the one list views should use
+    public int thumbnailWidth() {
+        return widths.get(0);
+    }
+
+    public String renditionKey(String objectKey, int width) {
+        return objectKey + ".w" + width + ".jpg";
+    }
+
+    // The photo a rendition key was derived from, or the key itself when it is not a rendition
+    public String originalKey(String objectKey) {
+        Matcher matcher = RENDITION_KEY.matcher(objectKey);
+        return matcher.matches() ? matcher.group(1) : objectKey;
+    }
+
+    // Stored object keys only: legacy data URLs, external links and failed uploads have no renditions
+    public boolean hasRenditions(String photo) {
+        return isEnabled() && isStoredPhoto(photo) && !RENDITION_KEY.matcher(photo).matches();
+    }
+
+    // Whether the column value is a key in the object store (an original or a rendition)
+    public boolean isStoredPhoto(String photo) {
+        return photo != null && !photo.isEmpty() && !UPLOAD_ERROR_MARKER.equals(photo)
+            && !photo.startsWith("data:") && !photo.startsWith("http");
+    }
+
+    // Keys of every configured rendition of a stored original, whether or not they were generated
+    public List<String> renditionKeys(String objectKey) {
+        List<String> keys = new ArrayList<>(widths.size());
+        for (int width : widths) {
+            keys.add(renditionKey(objectKey, width));
+        }
+        return keys;
+    }
+
+    // Queue rendition generation for a freshly stored photo; under load the job is dropped, the proxy
+    // will generate it on first view
+    public void submit(String objectKey) {
+        if (!hasRenditions(objectKey) || !inFlight.add(objectKey)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(objectKey);
+                } finally {
+                    inFlight.remove(objectKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(objectKey);
+            droppedCounter.increment();
+        }
+    }
+
+    // Queues generation of the original behind renditionKey; false when it is not a rendition of a configured width
+    public boolean submitFor(String renditionKey) {
+        Matcher matcher = RENDITION_KEY.matcher(renditionKey);
+        if (!isEnabled() || !matcher.matches() || !widths.contains(Integer.valueOf(matcher.group(2)))) {
+            return false;
+        }
+        submit(matcher.group(1));
+        return true;
+    }
+
+    // Whether the rendition is in storage; a missing one is queued for generation
+    public boolean renditionExists(String renditionKey) {
+        if (exists(renditionKey)) {
+            return true;
+        }
+        submitFor(renditionKey);
+        return false;
+    }
+
+    // Whether the rendition is in storage, without queuing anything
+    public boolean renditionStored(String renditionKey) {
+        return exists(renditionKey);
+    }
+
+    // Drops deleted objects from the known-renditions cache
+    public void forget(Collection<String> objectKeys) {
+        objectKeys.forEach(knownRenditions::remove);
+    }
+
+    // Generates the renditions of the original behind renditionKey on the calling thread, for background jobs
+    // only; false when the key is not a rendition of a configured width or the original is not an image, which
+    // retrying will not change. Storage failures are thrown
+    public boolean generateFor(String renditionKey) {
+        Matcher matcher = RENDITION_KEY.matcher(renditionKey);
+        if (!isEnabled() || !matcher.matches() || !widths.contains(Integer.valueOf(matcher.group(2)))) {
+            return false;
+        }
+        try {
+            return generateOrThrow(matcher.group(1));
+        } catch (Exception e) {
+            failureCounter.increment();
+            throw new RuntimeException("Error generating thumbnails for " + matcher.group(1) + ": " + e.getMessage(), e);
+        }
+    }
+
+    private boolean generate(String objectKey) {
+        try {
+            return generateOrThrow(objectKey);
+        } catch (Exception e) {
+            failureCounter.increment();
+            logger.warn("Thumbnail generation failed for {}: {}", objectKey, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean generateOrThrow(String objectKey) throws IOException {
+        long start = System.nanoTime();
+        List<Integer> missing = new ArrayList<>();
+        for (int width : widths) {
+            if (!exists(renditionKey(objectKey, width))) {
+                missing.add(width);
+            }
+        }
+        if (missing.isEmpty()) {
+            return true;
+        }
+
+        BufferedImage original = decode(objectKey, missing.get(missing.size() - 1));
+        if (original == null) {
+            logger.debug("Photo {} is not a readable image, no renditions generated", objectKey);
+            return false;
+        }
+        for (int width : missing) {
+            String key = renditionKey(objectKey, width);
+            storageService.putBytes(key, encodeJpeg(scale(original, width)), MediaType.IMAGE_JPEG_VALUE);
+            knownRenditions.put(key, Boolean.TRUE);
+        }
+        generateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private boolean exists(String objectKey) {
+        if (knownRenditions.containsKey(objectKey)) {
+            return true;
+        }
+        try {
+            storageService.stat(objectKey);
+            knownRenditions.put(objectKey, Boolean.TRUE);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Decodes with source subsampling so a 12 MP photo never has to be fully expanded in memory; the result
+    // is upright and still at least twice the largest target width
+    private BufferedImage decode(String objectKey, int largestWidth) throws IOException {
+        try (InputStream stream = storageService.getFile(objectKey);
+             ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, false);
+                int orientation = exifOrientation(reader);
+                // Orientations 5-8 turn the stored height into the displayed width
+                int displayedWidth = orientation >= 5 ? reader.getHeight(0) : reader.getWidth(0);
+                int factor = Math.max(1, displayedWidth / (largestWidth * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return orient(reader.read(0, param), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Phones store pixels as the sensor saw them and record the turn needed for display in the EXIF
+    // Orientation tag, which ImageIO does not apply; 1 (as stored) when there is none
+    private int exifOrientation(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)) {
+                return 1;
+            }
+            // The JPEG plugin keeps APP1 (Exif) as an unknown marker with its raw bytes
+            NodeList markers = ((IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT)).getElementsByTagName("unknown");
+            for (int i = 0; i < markers.getLength(); i++) {
+                IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+                if ("225".equals(marker.getAttribute("MarkerTag")) && marker.getUserObject() instanceof byte[]) {
+                    int orientation = exifOrientation((byte[]) marker.getUserObject());
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Could not read EXIF orientation: {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    // Orientation tag (0x0112) of IFD0 in an APP1 payload, 0 when it is not Exif or has no valid tag
+    private int exifOrientation(byte[] app1) {
+        if (app1.length < 14 || !new String(app1, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    // Applies an EXIF orientation: 2-4 mirror or turn in place, 5-8 also swap width and height
+    private BufferedImage orient(BufferedImage source, int orientation) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2: transform = new AffineTransform(-1, 0, 0, 1, w, 0); break;   // mirrored
+            case 3: transform = new AffineTransform(-1, 0, 0, -1, w, h); break;  // turned 180
+            case 4: transform = new AffineTransform(1, 0, 0, -1, 0, h); break;   // upside down mirror
+            case 5: transform = new AffineTransform(0, 1, 1, 0, 0, 0); break;    // transposed
+            case 6: transform = new AffineTransform(0, 1, -1, 0, h, 0); break;   // turn 90 clockwise
+            case 7: transform = new AffineTransform(0, -1, -1, 0, h, w); break;  // transversed
+            case 8: transform = new AffineTransform(0, -1, 1, 0, 0, w); break;   // turn 90 counter-clockwise
+            default: return source;
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    private BufferedImage scale(BufferedImage source, int width) {
+        // Never upscale
+        int targetWidth = Math.min(width, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * (targetWidth / (double) source.getWidth())));
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            // JPEG has no alpha, flatten transparent PNGs onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
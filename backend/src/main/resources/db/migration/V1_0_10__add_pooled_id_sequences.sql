@@ -0,0 +1,19 @@
+-- Pooled id sequences so Hibernate can allocate ids in blocks of 50 and batch inserts
+-- (IDENTITY columns force one INSERT round trip per row)
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS leave_requests_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS attendance_seq INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer hands out (value - 49) .. value, so start 50 past the current maximum
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 50, false);
+SELECT setval('leave_requests_seq', COALESCE((SELECT MAX(id) FROM leave_requests), 0) + 50, false);
+SELECT setval('attendance_seq', COALESCE((SELECT MAX(id) FROM attendance), 0) + 50, false);
+
+-- Inserts that rely on the column default draw from the same sequences and can never collide
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE leave_requests ALTER COLUMN id SET DEFAULT nextval('leave_requests_seq');
+ALTER TABLE attendance ALTER COLUMN id SET DEFAULT nextval('attendance_seq');
+
+ALTER SEQUENCE users_seq OWNED BY users.id;
+ALTER SEQUENCE leave_requests_seq OWNED BY leave_requests.id;
+ALTER SEQUENCE attendance_seq OWNED BY attendance.id;
@@ -0,0 +1,19 @@
+-- At most one open (not yet checked out) attendance session per user
+
+-- Close stale duplicate open sessions, keeping each user's latest one open. They never had a real check-out:
+-- the zero-length session is marked 'Auto-closed' so reports can tell it from a completed one and filter it out
+UPDATE attendance a
+SET check_out_time = a.check_in_time,
+    status = 'Auto-closed'
+WHERE a.check_out_time IS NULL
+  AND EXISTS (
+      SELECT 1 FROM attendance b
+      WHERE b.user_id = a.user_id
+        AND b.check_out_time IS NULL
+        AND (b.check_in_time > a.check_in_time OR (b.check_in_time = a.check_in_time AND b.id > a.id))
+  );
+
+-- Serves "check out my current session" lookups and rejects a second concurrent open session
+CREATE UNIQUE INDEX IF NOT EXISTS ux_attendance_open_session
+    ON attendance (user_id)
+    WHERE check_out_time IS NULL;
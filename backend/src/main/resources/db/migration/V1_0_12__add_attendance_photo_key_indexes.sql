@@ -0,0 +1,4 @@
+-- Photo objects are content-addressed and can be shared by several attendance rows.
+-- Hash indexes answer "is this object still referenced?" without indexing the (possibly long) values themselves.
+CREATE INDEX IF NOT EXISTS idx_attendance_check_in_photo_url ON attendance USING HASH (check_in_photo_url);
+CREATE INDEX IF NOT EXISTS idx_attendance_check_out_photo_url ON attendance USING HASH (check_out_photo_url);
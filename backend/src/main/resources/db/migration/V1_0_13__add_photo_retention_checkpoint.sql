@@ -0,0 +1,10 @@
+-- Resume point of each retention job: the last (date, id) it has fully processed
+CREATE TABLE IF NOT EXISTS retention_checkpoint (
+    job_name VARCHAR(64) PRIMARY KEY,
+    last_date DATE NOT NULL,
+    last_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Retention walks attendance in (date, id) order from the checkpoint
+CREATE INDEX IF NOT EXISTS idx_attendance_date_id ON attendance (date, id);
@@ -0,0 +1,3 @@
+-- Per-employee leave statistics filter and page by start date
+CREATE INDEX IF NOT EXISTS idx_leave_requests_user_start_date
+    ON leave_requests (user_id, start_date);
@@ -0,0 +1,7 @@
+-- Admin leave search pages by (created_at DESC, id DESC), optionally filtered by status or employee
+CREATE INDEX IF NOT EXISTS idx_leave_requests_created_id
+    ON leave_requests (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_leave_requests_status_created_id
+    ON leave_requests (status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_leave_requests_user_created_id
+    ON leave_requests (user_id, created_at DESC, id DESC);
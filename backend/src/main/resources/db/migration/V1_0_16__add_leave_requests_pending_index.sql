@@ -0,0 +1,4 @@
+-- Pending requests are a small, constantly polled slice of leave_requests; index only those rows
+CREATE INDEX IF NOT EXISTS idx_leave_requests_pending
+    ON leave_requests (created_at DESC, id DESC)
+    WHERE status = 'PENDING';
@@ -0,0 +1,11 @@
+-- Last photo retention stage a record has been through: 0 none, 1 originals reduced, 2 photos removed.
+-- A pass then only revisits records that still have work left, however often it starts over
+ALTER TABLE attendance ADD COLUMN IF NOT EXISTS photo_retention_stage SMALLINT NOT NULL DEFAULT 0;
+
+-- Only records with photos and work left are indexed; the set shrinks as retention catches up
+CREATE INDEX IF NOT EXISTS idx_attendance_photo_retention
+    ON attendance (date, id)
+    WHERE photo_retention_stage < 2 AND (check_in_photo_url IS NOT NULL OR check_out_photo_url IS NOT NULL);
+
+-- Superseded by the partial index above
+DROP INDEX IF EXISTS idx_attendance_date_id;
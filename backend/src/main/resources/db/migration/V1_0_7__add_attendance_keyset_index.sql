@@ -0,0 +1,4 @@
+-- Support keyset pagination of the attendance feed
+-- Matches the ORDER BY date DESC, check_in_time DESC, id DESC used by the paged queries
+CREATE INDEX IF NOT EXISTS idx_attendance_date_check_in_id
+    ON attendance (date DESC, check_in_time DESC, id DESC);
@@ -0,0 +1,6 @@
+-- Store attendance.date as a real DATE instead of a 'YYYY-MM-DD' string
+ALTER TABLE attendance ALTER COLUMN date TYPE DATE USING date::date;
+
+-- Per-user history and date-range lookups become index range scans
+CREATE INDEX IF NOT EXISTS idx_attendance_user_date_check_in
+    ON attendance (user_id, date DESC, check_in_time DESC);
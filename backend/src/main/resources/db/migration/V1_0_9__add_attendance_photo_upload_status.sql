@@ -0,0 +1,9 @@
+-- Track background photo uploads: NULL (no upload), PENDING, UPLOADED or FAILED
+ALTER TABLE attendance ADD COLUMN IF NOT EXISTS check_in_photo_status VARCHAR(20) NULL;
+ALTER TABLE attendance ADD COLUMN IF NOT EXISTS check_out_photo_status VARCHAR(20) NULL;
+
+-- Only unfinished uploads are indexed, so the lookup stays small
+CREATE INDEX IF NOT EXISTS idx_attendance_photo_upload_unfinished
+    ON attendance (id)
+    WHERE check_in_photo_status IN ('PENDING', 'FAILED')
+       OR check_out_photo_status IN ('PENDING', 'FAILED');
@@ -0,0 +1,148 @@
+package com.company.leaveapproval.repository;
+
+import com.company.leaveapproval.entity.Attendance;
+import com.company.leaveapproval.entity.LeaveRequest;
+import com.company.leaveapproval.entity.Role;
+import com.company.leaveapproval.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Prepared statements for saveAll with the configured JDBC batch size against the same inserts sent one
+// statement per row (what IDENTITY ids forced before). Insert rates are only measured by the benchmark-tagged
+// test; they run on H2, so the absolute numbers say little about PostgreSQL.
+@DataJpaTest(showSql = false, properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.SQL=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+class BatchInsertTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchInsertTest.class);
+    private static final int ROWS = 100;
+    private static final int BENCHMARK_ROWS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    private User user;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.saveAndFlush(new User("Batch", "Tester", "batch@example.com", "secret",
+            "Engineering", "Developer", Role.EMPLOYEE));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void attendanceInsertsAreBatched() {
+        long unbatched = insert(1, ROWS, () -> attendanceRepository.saveAll(attendanceRows(ROWS)));
+        long batched = insert(BATCH_SIZE, ROWS, () -> attendanceRepository.saveAll(attendanceRows(ROWS)));
+
+        assertTrue(unbatched >= ROWS, "unbatched prepared " + unbatched + " statements");
+        // One insert statement per batch plus one sequence call per pooled block of ids
+        assertTrue(batched <= 2 * (ROWS / BATCH_SIZE) + 2, "batched prepared " + batched + " statements");
+    }
+
+    @Test
+    void leaveRequestInsertsAreBatched() {
+        long unbatched = insert(1, ROWS, () -> leaveRequestRepository.saveAll(leaveRows(ROWS)));
+        long batched = insert(BATCH_SIZE, ROWS, () -> leaveRequestRepository.saveAll(leaveRows(ROWS)));
+
+        assertTrue(unbatched >= ROWS, "unbatched prepared " + unbatched + " statements");
+        assertTrue(batched <= 2 * (ROWS / BATCH_SIZE) + 2, "batched prepared " + batched + " statements");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void insertRates() {
+        measure("attendance", () -> attendanceRepository.saveAll(attendanceRows(BENCHMARK_ROWS)));
+        measure("leave request", () -> leaveRequestRepository.saveAll(leaveRows(BENCHMARK_ROWS)));
+    }
+
+    // Logs rows per second unbatched and batched, after a warm-up so the first run does not also pay for JIT
+    private void measure(String label, Supplier<List<?>> saveAll) {
+        insert(BATCH_SIZE, BENCHMARK_ROWS, saveAll);
+        for (int batchSize : new int[] {1, BATCH_SIZE}) {
+            long start = System.nanoTime();
+            long statements = insert(batchSize, BENCHMARK_ROWS, saveAll);
+            long elapsedNanos = System.nanoTime() - start;
+            logger.info("{} inserts, batch size {}: {} statements, {} rows/s", label, batchSize, statements,
+                Math.round(BENCHMARK_ROWS * 1_000_000_000.0 / elapsedNanos));
+        }
+    }
+
+    // Saves and flushes rows entities with the given session batch size; returns the prepared statement count
+    private long insert(int batchSize, int rows, Supplier<List<?>> saveAll) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        statistics.clear();
+        List<?> saved = saveAll.get();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(rows, saved.size());
+        assertEquals(rows, statistics.getEntityInsertCount());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Attendance> attendanceRows(int count) {
+        User owner = entityManager.getReference(User.class, user.getId());
+        List<Attendance> rows = new ArrayList<>(count);
+        LocalDateTime checkIn = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            Attendance attendance = new Attendance();
+            attendance.setUser(owner);
+            attendance.setDate(checkIn.toLocalDate().plusDays(i));
+            attendance.setCheckInTime(checkIn.plusDays(i));
+            attendance.setCheckOutTime(checkIn.plusDays(i).plusHours(8));
+            attendance.setStatus("Completed");
+            rows.add(attendance);
+        }
+        return rows;
+    }
+
+    private List<LeaveRequest> leaveRows(int count) {
+        User owner = entityManager.getReference(User.class, user.getId());
+        List<LeaveRequest> rows = new ArrayList<>(count);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < count; i++) {
+            rows.add(new LeaveRequest(owner, start.plusDays(i), start.plusDays(i), "ANNUAL", "Batch insert test"));
+        }
+        return rows;
+    }
+}
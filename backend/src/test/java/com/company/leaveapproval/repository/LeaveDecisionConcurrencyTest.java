@@ -0,0 +1,254 @@
+package com.company.leaveapproval.repository;
+
+import com.company.leaveapproval.controller.LeaveRequestController;
+import com.company.leaveapproval.dto.BulkLeaveDecisionDto;
+import com.company.leaveapproval.dto.BulkLeaveDecisionItemResultDTO;
+import com.company.leaveapproval.dto.BulkLeaveDecisionResponseDTO;
+import com.company.leaveapproval.entity.LeaveRequest;
+import com.company.leaveapproval.entity.LeaveStatus;
+import com.company.leaveapproval.entity.Role;
+import com.company.leaveapproval.entity.User;
+import com.company.leaveapproval.service.LeaveEventService;
+import com.company.leaveapproval.service.LeaveSearchCountCache;
+import com.company.leaveapproval.service.PendingLeaveQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Bulk decisions racing each other on PostgreSQL, which decidePending needs for UPDATE ... RETURNING. The schema
+// comes from the Flyway migrations. Data is committed rather than rolled back so each admin can run in its own
+// transaction; skipped when Docker is not available.
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.hibernate.ddl-auto=none",
+    "logging.level.org.hibernate.SQL=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LeaveDecisionConcurrencyTest {
+
+    private static final long MISSING_ID = 999_999L;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    // The container URL already carries a query string, so the parameters DataSourceConfig appends stay valid
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ExecutorService executor;
+    private int users;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        leaveRequestRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void onlyPendingRequestsAreDecided() {
+        User admin = newUser(Role.ADMIN);
+        Long pending = newRequest(LeaveStatus.PENDING).getId();
+        Long decided = newRequest(LeaveStatus.APPROVED).getId();
+
+        List<Long> applied = leaveRequestRepository.decidePending(List.of(pending, decided, MISSING_ID),
+            LeaveStatus.REJECTED.name(), "Bulk", admin.getId(), LocalDateTime.now());
+
+        assertEquals(List.of(pending), applied);
+        assertEquals(LeaveStatus.REJECTED, leaveRequestRepository.findById(pending).orElseThrow().getStatus());
+        assertEquals(LeaveStatus.APPROVED, leaveRequestRepository.findById(decided).orElseThrow().getStatus());
+    }
+
+    @Test
+    void overlappingDecisionsEachApplyToADisjointShareOfTheRequests() throws Exception {
+        User approver = newUser(Role.ADMIN);
+        User rejecter = newUser(Role.ADMIN);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(newRequest(LeaveStatus.PENDING).getId());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        Future<List<Long>> approved = executor.submit(() -> {
+            start.await();
+            return leaveRequestRepository.decidePending(ids, LeaveStatus.APPROVED.name(), "Approved",
+                approver.getId(), LocalDateTime.now());
+        });
+        Future<List<Long>> rejected = executor.submit(() -> {
+            start.await();
+            return leaveRequestRepository.decidePending(ids, LeaveStatus.REJECTED.name(), "Rejected",
+                rejecter.getId(), LocalDateTime.now());
+        });
+        start.countDown();
+
+        Set<Long> approvedIds = new HashSet<>(approved.get(10, TimeUnit.SECONDS));
+        Set<Long> rejectedIds = new HashSet<>(rejected.get(10, TimeUnit.SECONDS));
+
+        // Every request is decided exactly once and keeps the decision of the admin whose UPDATE returned it
+        assertEquals(ids.size(), approvedIds.size() + rejectedIds.size());
+        assertTrue(approvedIds.stream().noneMatch(rejectedIds::contains));
+        for (LeaveRequest request : leaveRequestRepository.findWithUsersByIdIn(ids)) {
+            boolean wasApproved = approvedIds.contains(request.getId());
+            assertEquals(wasApproved ? LeaveStatus.APPROVED : LeaveStatus.REJECTED, request.getStatus());
+            assertEquals(wasApproved ? approver.getId() : rejecter.getId(), request.getApprovedBy().getId());
+        }
+    }
+
+    @Test
+    void requestDecidedWhileTheBulkUpdateWaitsIsReportedAsConflict() throws Exception {
+        User admin = newUser(Role.ADMIN);
+        User otherAdmin = newUser(Role.ADMIN);
+        Long pending = newRequest(LeaveStatus.PENDING).getId();
+        Long contested = newRequest(LeaveStatus.PENDING).getId();
+
+        // The other admin decides the contested request and holds its row lock until released
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> otherDecision = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            leaveRequestRepository.decidePending(List.of(contested), LeaveStatus.REJECTED.name(), "Too late",
+                otherAdmin.getId(), LocalDateTime.now());
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        Future<ResponseEntity<?>> bulk = executor.submit(() -> controller().decideLeaveRequests(
+            decision(List.of(pending, contested, MISSING_ID)),
+            new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities())));
+        // The bulk UPDATE is blocked on the contested row; let the other admin commit underneath it
+        awaitCondition(() -> lockWaits() > 0);
+        release.countDown();
+        otherDecision.get(10, TimeUnit.SECONDS);
+
+        BulkLeaveDecisionResponseDTO response = (BulkLeaveDecisionResponseDTO) bulk.get(10, TimeUnit.SECONDS).getBody();
+        Map<Long, BulkLeaveDecisionItemResultDTO> results = response.getResults().stream()
+            .collect(Collectors.toMap(BulkLeaveDecisionItemResultDTO::getId, Function.identity()));
+
+        assertEquals("APPLIED", results.get(pending).getResult());
+        assertEquals(LeaveStatus.APPROVED.name(), results.get(pending).getStatus());
+        assertEquals("CONFLICT", results.get(contested).getResult());
+        assertEquals(LeaveStatus.REJECTED.name(), results.get(contested).getStatus());
+        assertEquals("NOT_FOUND", results.get(MISSING_ID).getResult());
+        assertEquals(1, response.getApplied());
+        assertEquals(1, response.getConflicts());
+        assertEquals(1, response.getNotFound());
+
+        LeaveRequest contestedRequest = leaveRequestRepository.findWithUsersByIdIn(List.of(contested)).get(0);
+        assertEquals(otherAdmin.getId(), contestedRequest.getApprovedBy().getId());
+    }
+
+    // The controller over the real repository; caches, queue and events are not under test
+    private LeaveRequestController controller() {
+        LeaveRequestController controller = new LeaveRequestController();
+        ReflectionTestUtils.setField(controller, "leaveRequestRepository", leaveRequestRepository);
+        ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+        ReflectionTestUtils.setField(controller, "leaveSearchCountCache", Mockito.mock(LeaveSearchCountCache.class));
+        ReflectionTestUtils.setField(controller, "pendingLeaveQueue", Mockito.mock(PendingLeaveQueue.class));
+        ReflectionTestUtils.setField(controller, "leaveEventService", Mockito.mock(LeaveEventService.class));
+        return controller;
+    }
+
+    private static BulkLeaveDecisionDto decision(List<Long> ids) {
+        BulkLeaveDecisionDto dto = new BulkLeaveDecisionDto();
+        dto.setIds(ids);
+        dto.setStatus(LeaveStatus.APPROVED.name());
+        dto.setAdminComment("Bulk");
+        return dto;
+    }
+
+    private int lockWaits() {
+        Integer waits = new JdbcTemplate(dataSource).queryForObject(
+            "SELECT COUNT(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Integer.class);
+        return waits == null ? 0 : waits;
+    }
+
+    private LeaveRequest newRequest(LeaveStatus status) {
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        LeaveRequest request = new LeaveRequest(newUser(Role.EMPLOYEE), start, start.plusDays(1), "ANNUAL",
+            "Decision test");
+        request.setStatus(status);
+        return leaveRequestRepository.save(request);
+    }
+
+    private User newUser(Role role) {
+        users++;
+        return userRepository.save(new User("Decision", "Tester" + users, "decision" + users + "@example.com",
+            "secret", "Engineering", "Developer", role));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.company.leaveapproval.repository;
+
+import com.company.leaveapproval.dto.LeaveRequestDto;
+import com.company.leaveapproval.entity.LeaveRequest;
+import com.company.leaveapproval.entity.LeaveStatus;
+import com.company.leaveapproval.entity.Role;
+import com.company.leaveapproval.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Prepared statements behind /all, /pending (database fallback) and /my-requests: the repository query plus
+// the LeaveRequestDto mapping the controller does. Every row gets its own employee and approver, so a lazy
+// association left out of the fetch would show up as one extra statement per row.
+@DataJpaTest(showSql = false, properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.SQL=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+class LeaveRequestQueryCountTest {
+
+    private static final int FEW = 5;
+    private static final int MANY = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    private Statistics statistics;
+    private int users;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void allRequestsTakeOneStatement() {
+        seed(FEW, null, LeaveStatus.APPROVED);
+        long few = statementsFor(() -> leaveRequestRepository.findAllByOrderByCreatedAtDesc(), FEW);
+        seed(MANY - FEW, null, LeaveStatus.REJECTED);
+        long many = statementsFor(() -> leaveRequestRepository.findAllByOrderByCreatedAtDesc(), MANY);
+
+        assertEquals(1, few);
+        assertEquals(few, many);
+    }
+
+    @Test
+    void pendingRequestsTakeOneStatement() {
+        seed(FEW, null, LeaveStatus.PENDING);
+        long few = statementsFor(() -> leaveRequestRepository.findByStatus(LeaveStatus.PENDING), FEW);
+        seed(MANY - FEW, null, LeaveStatus.PENDING);
+        long many = statementsFor(() -> leaveRequestRepository.findByStatus(LeaveStatus.PENDING), MANY);
+
+        assertEquals(1, few);
+        assertEquals(few, many);
+    }
+
+    @Test
+    void myRequestsTakeOneStatement() {
+        User employee = newUser(Role.EMPLOYEE);
+        seed(FEW, employee, LeaveStatus.APPROVED);
+        long few = statementsFor(() -> leaveRequestRepository.findByEmployeeOrderByCreatedAtDesc(employee), FEW);
+        seed(MANY - FEW, employee, LeaveStatus.PENDING);
+        long many = statementsFor(() -> leaveRequestRepository.findByEmployeeOrderByCreatedAtDesc(employee), MANY);
+
+        assertEquals(1, few);
+        assertEquals(few, many);
+    }
+
+    // Runs the query and maps every row the way the controller does, against an empty persistence context
+    private long statementsFor(Supplier<List<LeaveRequest>> query, int expectedRows) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<LeaveRequestDto> dtos = query.get().stream()
+            .map(LeaveRequestDto::fromEntity)
+            .collect(Collectors.toList());
+
+        assertEquals(expectedRows, dtos.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    // count requests, each with its own approver and, unless owner is given, its own employee. The approver
+    // is set whatever the status so every query has both associations to load
+    private void seed(int count, User owner, LeaveStatus status) {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < count; i++) {
+            User employee = owner != null ? owner : newUser(Role.EMPLOYEE);
+            LeaveRequest request = new LeaveRequest(employee, start.plusDays(i), start.plusDays(i), "ANNUAL",
+                "Query count test");
+            request.setStatus(status);
+            request.setApprovedBy(newUser(Role.ADMIN));
+            leaveRequestRepository.save(request);
+        }
+    }
+
+    private User newUser(Role role) {
+        users++;
+        return userRepository.save(new User("Query", "Tester" + users, "query" + users + "@example.com", "secret",
+            "Engineering", "Developer", role));
+    }
+}
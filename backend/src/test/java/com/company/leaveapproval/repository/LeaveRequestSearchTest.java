@@ -0,0 +1,170 @@
+package com.company.leaveapproval.repository;
+
+import com.company.leaveapproval.dto.LeaveRequestCursor;
+import com.company.leaveapproval.dto.LeaveSearchCriteria;
+import com.company.leaveapproval.entity.LeaveRequest;
+import com.company.leaveapproval.entity.LeaveStatus;
+import com.company.leaveapproval.entity.Role;
+import com.company.leaveapproval.entity.User;
+import com.company.leaveapproval.service.LeaveSearchCountCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Admin leave search: keyset paging where many rows share a created_at, the overlapping date window, and the
+// count cache in front of countMatching
+@DataJpaTest(showSql = false, properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "logging.level.org.hibernate.SQL=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+class LeaveRequestSearchTest {
+
+    private static final LocalDateTime SAME_INSTANT = LocalDateTime.of(2024, 3, 1, 9, 0);
+    private static final LocalDate MARCH_10 = LocalDate.of(2024, 3, 10);
+    private static final LocalDate MARCH_20 = LocalDate.of(2024, 3, 20);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    private User employee;
+
+    @BeforeEach
+    void setUp() {
+        employee = userRepository.save(new User("Search", "Tester", "search@example.com", "secret",
+            "Engineering", "Developer", Role.EMPLOYEE));
+    }
+
+    @Test
+    void pagesThroughRequestsCreatedAtTheSameInstant() {
+        newRequest(SAME_INSTANT.plusHours(1), MARCH_10, MARCH_10, LeaveStatus.PENDING);
+        for (int i = 0; i < 7; i++) {
+            newRequest(SAME_INSTANT, MARCH_10, MARCH_10, LeaveStatus.PENDING);
+        }
+        newRequest(SAME_INSTANT.minusHours(1), MARCH_10, MARCH_10, LeaveStatus.PENDING);
+        newRequest(SAME_INSTANT.minusHours(1), MARCH_10, MARCH_10, LeaveStatus.PENDING);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Page boundaries fall inside the run of equal created_at values
+        List<Long> paged = new ArrayList<>();
+        LeaveRequestCursor after = null;
+        int pages = 0;
+        List<LeaveRequest> page;
+        do {
+            page = leaveRequestRepository.search(new LeaveSearchCriteria(), after, 3);
+            page.forEach(request -> paged.add(request.getId()));
+            if (!page.isEmpty()) {
+                LeaveRequest last = page.get(page.size() - 1);
+                after = new LeaveRequestCursor(last.getCreatedAt(), last.getId());
+            }
+            pages++;
+        } while (page.size() == 3);
+
+        List<Long> expected = leaveRequestRepository.findAll().stream()
+            .sorted(Comparator.comparing(LeaveRequest::getCreatedAt).thenComparing(LeaveRequest::getId).reversed())
+            .map(LeaveRequest::getId)
+            .collect(Collectors.toList());
+        assertEquals(10, expected.size());
+        assertEquals(expected, paged);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void keysetPagingKeepsTheFilters() {
+        for (int i = 0; i < 6; i++) {
+            newRequest(SAME_INSTANT, MARCH_10, MARCH_10, i % 2 == 0 ? LeaveStatus.PENDING : LeaveStatus.APPROVED);
+        }
+        LeaveSearchCriteria pending = new LeaveSearchCriteria(LeaveStatus.PENDING, null, null, null, null, null);
+
+        List<LeaveRequest> first = leaveRequestRepository.search(pending, null, 2);
+        LeaveRequest last = first.get(1);
+        List<LeaveRequest> second = leaveRequestRepository.search(pending,
+            new LeaveRequestCursor(last.getCreatedAt(), last.getId()), 2);
+
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertTrue(second.get(0).getId() < last.getId());
+        assertTrue(second.stream().allMatch(request -> request.getStatus() == LeaveStatus.PENDING));
+    }
+
+    @Test
+    void dateWindowSelectsOverlappingRequests() {
+        newRequest(SAME_INSTANT, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 9), LeaveStatus.PENDING);
+        Long endsOnFrom = newRequest(SAME_INSTANT, LocalDate.of(2024, 3, 5), MARCH_10, LeaveStatus.PENDING);
+        Long spans = newRequest(SAME_INSTANT, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), LeaveStatus.PENDING);
+        Long inside = newRequest(SAME_INSTANT, LocalDate.of(2024, 3, 12), LocalDate.of(2024, 3, 14), LeaveStatus.PENDING);
+        Long startsOnTo = newRequest(SAME_INSTANT, MARCH_20, LocalDate.of(2024, 3, 25), LeaveStatus.PENDING);
+        newRequest(SAME_INSTANT, LocalDate.of(2024, 3, 21), LocalDate.of(2024, 3, 22), LeaveStatus.PENDING);
+
+        LeaveSearchCriteria window = new LeaveSearchCriteria(null, null, null, null, MARCH_10, MARCH_20);
+        assertEquals(Set.of(endsOnFrom, spans, inside, startsOnTo), idsMatching(window));
+        assertEquals(4, leaveRequestRepository.countMatching(window));
+
+        // Either bound alone is open-ended on the other side
+        LeaveSearchCriteria fromOnly = new LeaveSearchCriteria(null, null, null, null, MARCH_20, null);
+        assertEquals(3, idsMatching(fromOnly).size());
+        assertEquals(3, leaveRequestRepository.countMatching(fromOnly));
+        LeaveSearchCriteria toOnly = new LeaveSearchCriteria(null, null, null, null, null, MARCH_10);
+        assertEquals(3, idsMatching(toOnly).size());
+        assertEquals(3, leaveRequestRepository.countMatching(toOnly));
+    }
+
+    @Test
+    void cachedCountsAreDroppedOnInvalidation() {
+        LeaveSearchCountCache cache = new LeaveSearchCountCache();
+        ReflectionTestUtils.setField(cache, "leaveRequestRepository", leaveRequestRepository);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+        LeaveSearchCriteria pending = new LeaveSearchCriteria(LeaveStatus.PENDING, null, null, null, null, null);
+        LeaveSearchCriteria approved = new LeaveSearchCriteria(LeaveStatus.APPROVED, null, null, null, null, null);
+        newRequest(SAME_INSTANT, MARCH_10, MARCH_10, LeaveStatus.PENDING);
+
+        assertEquals(1, cache.count(pending));
+        assertEquals(0, cache.count(approved));
+        newRequest(SAME_INSTANT, MARCH_10, MARCH_10, LeaveStatus.PENDING);
+        newRequest(SAME_INSTANT, MARCH_10, MARCH_10, LeaveStatus.APPROVED);
+
+        // Still the cached counts until a write invalidates them
+        assertEquals(1, cache.count(pending));
+        assertEquals(0, cache.count(approved));
+        cache.invalidateAll();
+        assertEquals(2, cache.count(pending));
+        assertEquals(1, cache.count(approved));
+    }
+
+    private Set<Long> idsMatching(LeaveSearchCriteria criteria) {
+        return leaveRequestRepository.search(criteria, null, 100).stream()
+            .map(LeaveRequest::getId)
+            .collect(Collectors.toSet());
+    }
+
+    private Long newRequest(LocalDateTime createdAt, LocalDate start, LocalDate end, LeaveStatus status) {
+        LeaveRequest request = new LeaveRequest(employee, start, end, "ANNUAL", "Search test");
+        request.setCreatedAt(createdAt);
+        request.setStatus(status);
+        return leaveRequestRepository.save(request).getId();
+    }
+}
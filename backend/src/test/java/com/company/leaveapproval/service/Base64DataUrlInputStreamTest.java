@@ -0,0 +1,92 @@
+package com.company.leaveapproval.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Base64DataUrlInputStreamTest {
+
+    private static final String PREFIX = "data:image/jpeg;base64,";
+    private static final int PHOTO_BYTES = 2 * 1024 * 1024;
+    private static final int ROUNDS = 20;
+
+    @Test
+    void decodesLikeTheJdkDecoder() throws IOException {
+        Random random = new Random(42);
+        for (int length = 0; length <= 300; length++) {
+            byte[] photo = new byte[length];
+            random.nextBytes(photo);
+            String dataUrl = PREFIX + Base64.getEncoder().encodeToString(photo);
+
+            Base64DataUrlInputStream stream = new Base64DataUrlInputStream(dataUrl);
+            assertEquals(length, stream.decodedLength(), "decoded length for " + length + " bytes");
+            assertArrayEquals(photo, Base64.getDecoder().wrap(stream).readAllBytes(), "payload of " + length + " bytes");
+        }
+    }
+
+    // Per-upload allocation of the old split-and-decode path against the streaming decoder feeding an
+    // 8 KB copy buffer, as putObject does. The old path holds two extra copies of the photo. Tagged as a
+    // benchmark since it decodes a 2 MB photo fifty times
+    @Test
+    @Tag("benchmark")
+    void streamingDecodeAllocatesFarLessPerUpload() throws IOException {
+        byte[] photo = new byte[PHOTO_BYTES];
+        new Random(7).nextBytes(photo);
+        String dataUrl = PREFIX + Base64.getEncoder().encodeToString(photo);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up both paths so class loading and JIT compilation are not measured
+        for (int i = 0; i < 5; i++) {
+            splitAndDecode(dataUrl);
+            streamDecode(dataUrl);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            splitAndDecode(dataUrl);
+        }
+        long splitPerUpload = (threads.getThreadAllocatedBytes(threadId) - before) / ROUNDS;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            streamDecode(dataUrl);
+        }
+        long streamPerUpload = (threads.getThreadAllocatedBytes(threadId) - before) / ROUNDS;
+
+        // The old path copies the payload (about 4/3 of the photo) and then the decoded photo itself
+        assertTrue(splitPerUpload > 2L * PHOTO_BYTES, "split+decode allocated " + splitPerUpload);
+        assertTrue(streamPerUpload < 64 * 1024, "streaming allocated " + streamPerUpload);
+    }
+
+    // What uploadBase64Image did before: split copy, then a full decoded array handed to a ByteArrayInputStream
+    private long splitAndDecode(String dataUrl) throws IOException {
+        byte[] decoded = Base64.getDecoder().decode(dataUrl.split(",")[1]);
+        return drain(new java.io.ByteArrayInputStream(decoded));
+    }
+
+    private long streamDecode(String dataUrl) throws IOException {
+        return drain(Base64.getDecoder().wrap(new Base64DataUrlInputStream(dataUrl)));
+    }
+
+    private long drain(InputStream stream) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,183 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.dto.LeaveRequestDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Subscribers whose client stops reading, simulated with emitters whose send blocks until released
+class LeaveEventServiceTest {
+
+    private static final int BUFFER_SIZE = 3;
+    private static final long SEND_TIMEOUT_MS = 50;
+    private static final int SENDER_THREADS = 2;
+
+    private LeaveEventService service;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new LeaveEventService();
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(service, "bufferSize", BUFFER_SIZE);
+        ReflectionTestUtils.setField(service, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(service, "senderThreads", SENDER_THREADS);
+        ReflectionTestUtils.setField(service, "sendTimeoutMs", SEND_TIMEOUT_MS);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void overflowReplacesBufferedEventsWithResync() {
+        BlockingEmitter slow = subscribe(1L);
+
+        publish();
+        // The first event is being written, the buffer behind it fills up and then overflows
+        awaitCondition(() -> sendStarted(1L) != 0);
+        for (int i = 0; i <= BUFFER_SIZE; i++) {
+            publish();
+        }
+        slow.release();
+        awaitCondition(() -> slow.events.size() == 2);
+
+        assertTrue(slow.events.get(0).contains("event:" + LeaveEventService.LEAVE_CREATED));
+        assertTrue(slow.events.get(1).contains("event:resync"));
+        assertEquals(1, meterRegistry.counter("leave.events.overflows").count());
+    }
+
+    @Test
+    void slowSubscriberIsDroppedWithoutHoldingUpOthers() throws InterruptedException {
+        BlockingEmitter slow = subscribe(1L);
+        BlockingEmitter fast = subscribe(2L);
+        fast.release();
+
+        publish();
+        // Served although a sender thread is stuck in the slow subscriber's send
+        awaitCondition(() -> fast.events.size() == 1);
+        awaitCondition(() -> sendStarted(1L) != 0);
+
+        Thread.sleep(SEND_TIMEOUT_MS * 2);
+        service.heartbeat();
+
+        assertNull(subscriberOf(1L));
+        assertNotNull(subscriberOf(2L));
+        assertEquals(1, meterRegistry.counter("leave.events.slow.dropped").count());
+
+        slow.release();
+        awaitCondition(slow.completedWithError::get);
+        // Nothing past the send that was stuck
+        assertEquals(1, slow.events.size());
+    }
+
+    @Test
+    void eventsWaitForAFreeSenderWhenEveryThreadIsBlocked() {
+        BlockingEmitter first = subscribe(1L);
+        BlockingEmitter second = subscribe(2L);
+        BlockingEmitter fast = subscribe(3L);
+        fast.release();
+
+        publish();
+        // Both sender threads are stuck and no third one is started
+        awaitCondition(() -> sendStarted(1L) != 0 && sendStarted(2L) != 0);
+        assertTrue(fast.events.isEmpty());
+
+        // The first thread to come free takes the waiting drain
+        first.release();
+        awaitCondition(() -> fast.events.size() == 1);
+        assertTrue(fast.events.get(0).contains("event:" + LeaveEventService.LEAVE_CREATED));
+        second.release();
+    }
+
+    // Subscribes an admin and swaps in a blocking emitter once the "connected" comment has gone out
+    private BlockingEmitter subscribe(Long userId) {
+        service.subscribe(userId, true);
+        Object subscriber = subscriberOf(userId);
+        awaitCondition(() -> !((AtomicBoolean) ReflectionTestUtils.getField(subscriber, "draining")).get()
+            && ((Queue<?>) ReflectionTestUtils.getField(subscriber, "queue")).isEmpty());
+        BlockingEmitter emitter = new BlockingEmitter();
+        ReflectionTestUtils.setField(subscriber, "emitter", emitter);
+        return emitter;
+    }
+
+    private void publish() {
+        service.publish(LeaveEventService.LEAVE_CREATED, new LeaveRequestDto(), 99L);
+    }
+
+    private long sendStarted(Long userId) {
+        Object subscriber = subscriberOf(userId);
+        return subscriber == null ? 0 : (Long) ReflectionTestUtils.getField(subscriber, "sendStarted");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object subscriberOf(Long userId) {
+        Map<Long, Object> subscribers = (Map<Long, Object>) ReflectionTestUtils.getField(service, "subscribers");
+        return subscribers.values().stream()
+            .filter(subscriber -> userId.equals(ReflectionTestUtils.getField(subscriber, "userId")))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Records what would go over the wire; every send waits until the client is released
+    private static class BlockingEmitter extends SseEmitter {
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean completedWithError = new AtomicBoolean();
+
+        private void release() {
+            released.countDown();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            events.add(builder.build().stream()
+                .map(data -> String.valueOf(data.getData()))
+                .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completedWithError.set(true);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.company.leaveapproval.service;
+
+import com.company.leaveapproval.dto.LeaveRequestDto;
+import com.company.leaveapproval.entity.LeaveRequest;
+import com.company.leaveapproval.entity.LeaveStatus;
+import com.company.leaveapproval.entity.Role;
+import com.company.leaveapproval.entity.User;
+import com.company.leaveapproval.repository.LeaveRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Reconciliation of the in-process pending queue against a stubbed repository holding the pending rows
+class PendingLeaveQueueTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private PendingLeaveQueue queue;
+    private LeaveRequestRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    // What the database considers pending
+    private final Map<Long, LeaveRequest> pendingRows = new ConcurrentHashMap<>();
+    private final User employee = new User("Queue", "Tester", "queue@example.com", "secret",
+        "Engineering", "Developer", Role.EMPLOYEE);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        repository = Mockito.mock(LeaveRequestRepository.class);
+        when(repository.findPendingIds()).thenAnswer(invocation -> new ArrayList<>(pendingRows.keySet()));
+        when(repository.findPendingByIdIn(any())).thenAnswer(invocation -> ((Collection<Long>) invocation.getArgument(0))
+            .stream()
+            .map(pendingRows::get)
+            .collect(Collectors.toList()));
+
+        queue = new PendingLeaveQueue();
+        ReflectionTestUtils.setField(queue, "leaveRequestRepository", repository);
+        ReflectionTestUtils.setField(queue, "meterRegistry", meterRegistry);
+        queue.init();
+    }
+
+    @Test
+    void firstReconcileLoadsThePendingRequestsNewestFirst() {
+        pendingRows.put(1L, request(1L, CREATED, LeaveStatus.PENDING));
+        pendingRows.put(2L, request(2L, CREATED.plusHours(1), LeaveStatus.PENDING));
+        pendingRows.put(3L, request(3L, CREATED, LeaveStatus.PENDING));
+        assertFalse(queue.isLoaded());
+
+        queue.reconcile();
+
+        assertTrue(queue.isLoaded());
+        assertEquals(List.of(2L, 3L, 1L), queuedIds());
+        // The initial load is not drift
+        assertEquals(0, drift());
+    }
+
+    @Test
+    void reconcileWithoutDriftLoadsNothing() {
+        pendingRows.put(1L, request(1L, CREATED, LeaveStatus.PENDING));
+        queue.reconcile();
+        Mockito.clearInvocations(repository);
+
+        queue.reconcile();
+
+        verify(repository, never()).findPendingByIdIn(any());
+        assertEquals(List.of(1L), queuedIds());
+        assertEquals(0, drift());
+    }
+
+    @Test
+    void missingAndStaleRequestsAreCountedAsDrift() {
+        pendingRows.put(1L, request(1L, CREATED, LeaveStatus.PENDING));
+        pendingRows.put(2L, request(2L, CREATED, LeaveStatus.PENDING));
+        queue.reconcile();
+
+        // Another instance decided 1 and created 3 and 4
+        pendingRows.remove(1L);
+        pendingRows.put(3L, request(3L, CREATED.plusHours(1), LeaveStatus.PENDING));
+        pendingRows.put(4L, request(4L, CREATED.plusHours(2), LeaveStatus.PENDING));
+        queue.reconcile();
+
+        assertEquals(List.of(4L, 3L, 2L), queuedIds());
+        assertEquals(3, drift());
+    }
+
+    @Test
+    void reconcileOverlappingAWriteIsDeferred() {
+        pendingRows.put(1L, request(1L, CREATED, LeaveStatus.PENDING));
+        pendingRows.put(2L, request(2L, CREATED, LeaveStatus.PENDING));
+        queue.reconcile();
+
+        // 1 was decided elsewhere; while the pending ids are read, this instance creates 3. The database read
+        // predates that write and must not be applied over it
+        pendingRows.remove(1L);
+        LeaveRequest created = request(3L, CREATED.plusHours(1), LeaveStatus.PENDING);
+        when(repository.findPendingIds()).thenAnswer(invocation -> {
+            List<Long> ids = new ArrayList<>(pendingRows.keySet());
+            pendingRows.put(3L, created);
+            queue.update(created);
+            return ids;
+        }).thenAnswer(invocation -> new ArrayList<>(pendingRows.keySet()));
+        queue.reconcile();
+
+        assertEquals(List.of(3L, 2L, 1L), queuedIds());
+        assertEquals(0, drift());
+
+        // The next run, with no write in between, catches up
+        queue.reconcile();
+
+        assertEquals(List.of(3L, 2L), queuedIds());
+        assertEquals(1, drift());
+    }
+
+    @Test
+    void deferredFirstLoadLeavesTheQueueUnloaded() {
+        pendingRows.put(1L, request(1L, CREATED, LeaveStatus.PENDING));
+        when(repository.findPendingIds()).thenAnswer(invocation -> {
+            queue.remove(1L);
+            return new ArrayList<>(pendingRows.keySet());
+        }).thenAnswer(invocation -> new ArrayList<>(pendingRows.keySet()));
+
+        queue.reconcile();
+        assertFalse(queue.isLoaded());
+
+        queue.reconcile();
+        assertTrue(queue.isLoaded());
+        assertEquals(List.of(1L), queuedIds());
+    }
+
+    private List<Long> queuedIds() {
+        return queue.list().stream().map(LeaveRequestDto::getId).collect(Collectors.toList());
+    }
+
+    private double drift() {
+        return meterRegistry.counter("leave.pending.queue.drift").count();
+    }
+
+    private LeaveRequest request(Long id, LocalDateTime createdAt, LeaveStatus status) {
+        LocalDate start = LocalDate.of(2024, 4, 1);
+        LeaveRequest request = new LeaveRequest(employee, start, start, "ANNUAL", "Queue test");
+        request.setId(id);
+        request.setCreatedAt(createdAt);
+        request.setStatus(status);
+        return request;
+    }
+}
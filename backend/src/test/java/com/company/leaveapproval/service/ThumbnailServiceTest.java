@@ -0,0 +1,137 @@
+package com.company.leaveapproval.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Renditions of phone photos, which store sideways pixels plus an EXIF Orientation tag
+class ThumbnailServiceTest {
+
+    private static final String ORIGINAL = "check-in/photo.jpg";
+    private static final String RENDITION = ORIGINAL + ".w160.jpg";
+    // Stored landscape: left half red, right half blue
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 40;
+
+    private ThumbnailService service;
+    private InMemoryStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorageService();
+        service = new ThumbnailService();
+        ReflectionTestUtils.setField(service, "storageService", storage);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "widthsProperty", "160");
+        ReflectionTestUtils.setField(service, "jpegQuality", 0.95f);
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        ReflectionTestUtils.setField(service, "knownCacheSize", 100);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void withoutOrientationTheRenditionKeepsTheStoredLayout() throws IOException {
+        storage.putBytes(ORIGINAL, jpeg(), MediaType.IMAGE_JPEG_VALUE);
+
+        BufferedImage rendition = render();
+
+        assertEquals(WIDTH, rendition.getWidth());
+        assertEquals(HEIGHT, rendition.getHeight());
+        assertTrue(isRed(rendition.getRGB(5, HEIGHT / 2)));
+    }
+
+    @Test
+    void orientationSixIsTurnedClockwise() throws IOException {
+        storage.putBytes(ORIGINAL, withOrientation(jpeg(), 6), MediaType.IMAGE_JPEG_VALUE);
+
+        BufferedImage rendition = render();
+
+        // Portrait, with the stored left edge now on top
+        assertEquals(HEIGHT, rendition.getWidth());
+        assertEquals(WIDTH, rendition.getHeight());
+        assertTrue(isRed(rendition.getRGB(HEIGHT / 2, 5)));
+        assertTrue(isBlue(rendition.getRGB(HEIGHT / 2, WIDTH - 5)));
+    }
+
+    @Test
+    void orientationEightIsTurnedCounterClockwise() throws IOException {
+        storage.putBytes(ORIGINAL, withOrientation(jpeg(), 8), MediaType.IMAGE_JPEG_VALUE);
+
+        BufferedImage rendition = render();
+
+        // Portrait, with the stored left edge now at the bottom
+        assertEquals(HEIGHT, rendition.getWidth());
+        assertEquals(WIDTH, rendition.getHeight());
+        assertTrue(isBlue(rendition.getRGB(HEIGHT / 2, 5)));
+        assertTrue(isRed(rendition.getRGB(HEIGHT / 2, WIDTH - 5)));
+    }
+
+    private BufferedImage render() throws IOException {
+        assertTrue(service.generateFor(RENDITION));
+        try (InputStream stream = storage.getFile(RENDITION)) {
+            return ImageIO.read(stream);
+        }
+    }
+
+    private static byte[] jpeg() throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, WIDTH / 2, HEIGHT);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(WIDTH / 2, 0, WIDTH / 2, HEIGHT);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    // Inserts a big-endian Exif APP1 segment with only an Orientation tag right after the JFIF APP0 segment
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer tiff = ByteBuffer.allocate(26);
+        tiff.put("MM".getBytes(StandardCharsets.ISO_8859_1)).putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+        byte[] exif = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+
+        int app0End = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        ByteBuffer result = ByteBuffer.allocate(jpeg.length + 4 + exif.length + tiff.capacity());
+        result.put(jpeg, 0, app0End);
+        result.put((byte) 0xFF).put((byte) 0xE1).putShort((short) (2 + exif.length + tiff.capacity()));
+        result.put(exif).put(tiff.array());
+        result.put(jpeg, app0End, jpeg.length - app0End);
+        return result.array();
+    }
+
+    private static boolean isRed(int rgb) {
+        return ((rgb >> 16) & 0xFF) > 200 && (rgb & 0xFF) < 60;
+    }
+
+    private static boolean isBlue(int rgb) {
+        return (rgb & 0xFF) > 200 && ((rgb >> 16) & 0xFF) < 60;
+    }
+}